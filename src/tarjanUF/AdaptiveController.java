@@ -0,0 +1,150 @@
+package tarjanUF;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// AdaptiveController limits the number of `SCCWorker`s exploring at the same time to the
+// number which gives the best throughput on the graph at hand. Beyond some point additional
+// workers mostly contend for the same locks and slow the others down.
+//
+// Every sampling period the controller measures the progress rate, the nodes fully explored
+// per second, and the contention, the failed lock attempts and spins per node explored, from
+// the counters of `UF`. It then hill climbs: the limit keeps moving in the same direction
+// while the rate improves and turns around when it does not, or when contention grows sharply
+// without a gain in rate. Workers above the limit park at their safe point, where they hold no
+// locks. Should the search stall while workers are parked, all of them are let go again.
+public class AdaptiveController {
+
+    // Milliseconds between two samples.
+    private static final long PERIOD = 50;
+    // A rate has to differ by this fraction from the previous one to count as a change.
+    private static final double TOLERANCE = 0.05;
+
+    private final UF unionfind;
+    private final int maxWorkers;
+    private ScheduledExecutorService scheduler;
+
+    // The number of workers allowed to explore, written under this.
+    private volatile int allowed;
+    // The number of workers which entered and are not parked, written under this.
+    private volatile int running;
+    // The number of parked workers, guarded by this.
+    private int parked;
+
+    // State of the hill climbing, only used by the sampling thread.
+    private int direction = 1;
+    private long lastTime;
+    private long lastProgress;
+    private long lastContention;
+    private double lastRate = -1;
+    private double lastRatio = -1;
+    private long samples;
+    private long allowedSum;
+
+    // Constructor.
+    // Starts with a few of at most `maxWorkers` workers.
+    public AdaptiveController(final UF unionfind, final int maxWorkers) {
+        this.unionfind = unionfind;
+        this.maxWorkers = maxWorkers;
+        this.allowed = Math.min(2, maxWorkers);
+    }
+
+    // start begins sampling the counters of the union find structure.
+    public void start() {
+        this.lastTime = System.nanoTime();
+        this.lastProgress = this.unionfind.progress.sum();
+        this.lastContention = this.unionfind.contention.sum();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.scheduler.scheduleAtFixedRate(this::sample, PERIOD, PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    // stop ends sampling and reports the limits chosen.
+    public void stop() {
+        this.scheduler.shutdown();
+        try {
+            this.scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        synchronized (this) {
+            System.err.println("Adaptive workers: final " + this.allowed + ", average "
+                + ((this.samples == 0) ? this.allowed : (double) this.allowedSum / this.samples));
+        }
+    }
+
+    // enter registers a worker which starts its DFS.
+    public synchronized void enter() {
+        this.running++;
+    }
+
+    // exit unregisters a worker which finished its DFS and lets a parked one take its place.
+    public synchronized void exit() {
+        this.running--;
+        this.notifyAll();
+    }
+
+    // admit is called by a worker at its safe point. It returns true if the worker may go on.
+    // Otherwise the worker is parked for at most a sampling period and false is returned, so
+    // that it can serve a checkpoint before asking again.
+    public boolean admit() {
+        // The common case does not take the lock.
+        if (this.running <= this.allowed) {
+            return true;
+        }
+        return this.park();
+    }
+
+    private synchronized boolean park() {
+        if (this.running <= this.allowed) {
+            return true;
+        }
+        this.running--;
+        this.parked++;
+        try {
+            this.wait(PERIOD);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            this.parked--;
+            this.running++;
+        }
+        return this.running <= this.allowed;
+    }
+
+    // sample takes a measurement and adjusts the number of workers allowed.
+    private void sample() {
+        final long time = System.nanoTime();
+        final long progress = this.unionfind.progress.sum();
+        final long contention = this.unionfind.contention.sum();
+        final long explored = progress - this.lastProgress;
+        final double rate = explored * 1e9 / (time - this.lastTime);
+        final double ratio = (double) (contention - this.lastContention) / Math.max(1, explored);
+        this.lastTime = time;
+        this.lastProgress = progress;
+        this.lastContention = contention;
+
+        synchronized (this) {
+            if (explored == 0 && this.parked > 0) {
+                // Stalled, let every worker go.
+                this.allowed = this.maxWorkers;
+                this.direction = -1;
+            } else if (this.lastRate >= 0) {
+                final boolean better = rate > this.lastRate * (1 + TOLERANCE);
+                final boolean contended = this.lastRatio >= 0 && ratio > 2 * this.lastRatio + 1;
+                if (!better || (contended && this.direction > 0 && rate < this.lastRate * (1 + 2 * TOLERANCE))) {
+                    this.direction = -this.direction;
+                }
+                // Grow fast at first, then settle by single steps.
+                final int step = Math.max(1, this.allowed / 4);
+                this.allowed = Math.max(1, Math.min(this.maxWorkers, this.allowed + this.direction * step));
+            }
+            this.samples++;
+            this.allowedSum += this.allowed;
+            this.notifyAll();
+        }
+        this.lastRate = rate;
+        this.lastRatio = ratio;
+    }
+
+}
@@ -0,0 +1,291 @@
+package tarjanUF;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Batch decomposes many graphs in a single JVM, so that a run over hundreds of small models is
+// not dominated by starting a JVM and warming up the JIT for every one of them.
+//
+// The graphs are processed concurrently, the largest files first. The threads of the machine
+// are handed out as permits: a graph with less than `large` nodes is searched by the
+// `sequential` engine with a single permit on the thread which loaded it, a larger one with
+// one permit per `large` nodes, up to all of them, by `onTheFly` workers on a pool of threads
+// shared by all searches. Hence the searches never use more threads than there are permits.
+// Every thread loading graphs reuses its input buffer.
+public class Batch {
+
+    // Job is a graph with its initial nodes and the file the SCCs are written to.
+    private static class Job {
+        final String graph;
+        final String inits;
+        final String output;
+
+        // Constructor.
+        Job(final String graph, final String inits, final String output) {
+            this.graph = graph;
+            this.inits = inits;
+            this.output = output;
+        }
+    }
+
+    // Loader reads the edge list files of `Main` with a buffer reused from graph to graph.
+    private static class Loader {
+        private final byte[] buffer = new byte[1 << 16];
+        private int size;
+        private int position;
+        private InputStream in;
+
+        // load reads the graph in `filename`.
+        Graph load(final String filename) throws IOException {
+            final Graph graph = new Graph(filename);
+            try (InputStream in = new FileInputStream(filename)) {
+                this.in = in;
+                this.size = 0;
+                this.position = 0;
+                while (true) {
+                    final int nodeId = this.next();
+                    if (nodeId < 0) {
+                        break;
+                    }
+                    final int arcId = this.next();
+                    if (arcId < 0) {
+                        throw new IOException(filename + ": an edge lacks its target.");
+                    }
+                    if (!graph.hasNode(nodeId)) {
+                        graph.addNode(new GraphNode(nodeId));
+                    }
+                    graph.addArc(nodeId, arcId);
+                    if (!graph.hasNode(arcId)) {
+                        graph.addNode(new GraphNode(arcId));
+                    }
+                }
+            } finally {
+                this.in = null;
+            }
+            return graph;
+        }
+
+        // next returns the next number in the input, -1 at its end.
+        private int next() throws IOException {
+            int c = this.read();
+            while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                c = this.read();
+            }
+            if (c == -1) {
+                return -1;
+            }
+            if (c < '0' || c > '9') {
+                throw new IOException("Unexpected character '" + (char) c + "' in the input.");
+            }
+            int value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                c = this.read();
+            }
+            return value;
+        }
+
+        private int read() throws IOException {
+            if (this.position == this.size) {
+                this.size = this.in.read(this.buffer);
+                this.position = 0;
+                if (this.size <= 0) {
+                    this.size = 0;
+                    return -1;
+                }
+            }
+            return this.buffer[this.position++];
+        }
+    }
+
+    private final int threads;
+    private final int large;
+    // The permits for the threads searching, fair so that large graphs are not starved.
+    private final Semaphore permits;
+    // The pool running the workers of the large graphs.
+    private final ExecutorService workers;
+    private final ThreadLocal<Loader> loaders = ThreadLocal.withInitial(Loader::new);
+
+    // Constructor.
+    // Runs on `threads` threads, searching graphs of at least `large` nodes concurrently.
+    public Batch(final int threads, final int large) {
+        this.threads = threads;
+        this.large = large;
+        this.permits = new Semaphore(threads, true);
+        this.workers = Executors.newFixedThreadPool(threads);
+        // Worker sets are sized once for the largest number of workers of any search.
+        UFNode.workerCount = threads;
+    }
+
+    // run decomposes the graph of `job` and writes its SCCs. Returns a line of statistics.
+    private String run(final Job job) throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final Graph graph;
+        final List<Integer> initNodes = new ArrayList<Integer>();
+        this.permits.acquire();
+        try {
+            graph = this.loaders.get().load(job.graph);
+            Main.readInits(initNodes, job.inits);
+        } finally {
+            this.permits.release();
+        }
+        final long loaded = System.nanoTime();
+
+        final int n = graph.N();
+        final int cores = (n < this.large) ? 1 : Math.min(this.threads, Math.max(2, (n + this.large - 1) / this.large));
+        final ConcurrentFastSCC algorithm = new ConcurrentFastSCC();
+        if (cores == 1) {
+            algorithm.setEngine(ConcurrentFastSCC.Engine.sequential);
+        } else {
+            algorithm.setSequentialThreshold(-1);
+            algorithm.setExecutor(this.workers);
+        }
+        this.permits.acquire(cores);
+        final UF unionfind;
+        final long searched;
+        try {
+            unionfind = new UF(n + 1, cores);
+            algorithm.search(graph, initNodes, unionfind, cores);
+            searched = System.nanoTime();
+        } finally {
+            this.permits.release(cores);
+        }
+
+        // Write the SCCs one per line, as `Main` prints them.
+        final int[] next = new int[n];
+        final int[] first = new int[n];
+        Arrays.fill(first, -1);
+        for (int v = n - 1; v >= 0; v--) {
+            final int root = unionfind.find(v + 1) - 1;
+            next[v] = first[root];
+            first[root] = v;
+        }
+        int sccs = 0;
+        try (Writer out = new BufferedWriter(new FileWriter(job.output), 1 << 16)) {
+            for (int root = 0; root < n; root++) {
+                if (first[root] == -1) {
+                    continue;
+                }
+                sccs++;
+                for (int v = first[root]; v != -1; v = next[v]) {
+                    out.write(Integer.toString(v));
+                    out.write(' ');
+                }
+                out.write('\n');
+            }
+        }
+        return job.graph + " nodes " + n + " sccs " + sccs + " threads " + cores
+            + " load " + (loaded - start) + " search " + (searched - loaded) + " output " + (System.nanoTime() - searched);
+    }
+
+    // runAll processes all jobs and returns the number of failed ones.
+    public int runAll(final List<Job> jobs) {
+        // Start with the largest graphs, the small ones fill the gaps in the end.
+        jobs.sort(Comparator.comparingLong((Job job) -> new File(job.graph).length()).reversed());
+        final ExecutorService loaders = Executors.newFixedThreadPool(this.threads);
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        final AtomicInteger failed = new AtomicInteger();
+        for (Job job: jobs) {
+            futures.add(loaders.submit(() -> {
+                try {
+                    System.out.println(this.run(job));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Failed " + job.graph + ": " + e);
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                    failed.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future: futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        loaders.shutdown();
+        this.workers.shutdown();
+        return failed.get();
+    }
+
+    // readJobs reads the list of graphs in `filename`. Every line holds a graph and optionally
+    // its initial nodes, <graph>.init by default. The SCCs of a graph go to <outputs>/<name>.scc.
+    private static List<Job> readJobs(final String filename, final String outputs) throws IOException {
+        final List<Job> jobs = new ArrayList<Job>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] split = line.split("\\s+");
+                final String inits = (split.length > 1) ? split[1] : split[0] + ".init";
+                jobs.add(new Job(split[0], inits, new File(outputs, new File(split[0]).getName() + ".scc").getPath()));
+            }
+        }
+        return jobs;
+    }
+
+    public static void main(String[] args) {
+        // The tool requires 2 parameters in its input.
+        // 1. A file listing the graphs, one per line, each optionally followed by its initial nodes.
+        // 2. Number of threads. #threads = -1 implies maximum available threads.
+        // Any further parameters are options:
+        //      --output-dir <dir>: The directory the SCCs of every graph are written to, the
+        //          current one by default.
+        //      --large <n>: Graphs with at least n nodes are searched by several threads, one
+        //          per n nodes, 100000 by default.
+        // A line of statistics is printed per graph. Exits with status 1 if any graph failed.
+        assert args.length >= 2;
+        String outputs = ".";
+        int large = 100000;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--output-dir":
+                    outputs = args[++i];
+                    break;
+                case "--large":
+                    large = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        final long start = System.nanoTime();
+        final int threads = ConcurrentFastSCC.requiredProcessors(Integer.parseInt(args[1]));
+        final List<Job> jobs;
+        try {
+            new File(outputs).mkdirs();
+            jobs = readJobs(args[0], outputs);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+            return;
+        }
+        final int failed = new Batch(threads, Math.max(1, large)).runAll(jobs);
+        System.err.println("Total runtime: " + (System.nanoTime() - start));
+        if (failed > 0) {
+            System.err.println(failed + " of " + jobs.size() + " graphs failed.");
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package tarjanUF;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// BatchedArcs iterates over the successors of a node for `SCCWorker`, taking them from the
+// arc iterator in blocks. The union find roots of a whole block are resolved at once and the
+// successors whose SCC is already dead are dropped, before any of them is claimed. Since the
+// `find`s of different successors are independent, their cache misses overlap instead of
+// being paid one after the other between the claims. A successor found live may still die
+// before it is returned, so the caller has to claim it as usual. Dead stays dead, though.
+public class BatchedArcs implements PrimitiveIterator.OfInt {
+
+    private final PrimitiveIterator.OfInt arcs;
+    private final UF unionfind;
+    // The successors of the current block not dropped, their index among the arcs and roots.
+    private final int[] block;
+    private final int[] index;
+    private final int[] roots;
+    private int size;
+    private int position;
+    // Number of arcs taken from `arcs` so far.
+    private int taken;
+    // Index of the arc returned last.
+    private int last = -1;
+
+    // Constructor.
+    // Iterates over `arcs` in blocks of `batch` successors, after skipping the first `skip`.
+    // With a batch of 1 the successors are passed on as they are, no block is allocated.
+    public BatchedArcs(final PrimitiveIterator.OfInt arcs, final UF unionfind, final int batch, final int skip) {
+        this.arcs = arcs;
+        this.unionfind = unionfind;
+        if (batch > 1) {
+            this.block = new int[batch];
+            this.index = new int[batch];
+            this.roots = new int[batch];
+        } else {
+            this.block = null;
+            this.index = null;
+            this.roots = null;
+        }
+        for (; this.taken < skip; this.taken++) {
+            arcs.nextInt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.block == null) {
+            return this.arcs.hasNext();
+        }
+        while (this.position == this.size) {
+            if (!this.arcs.hasNext()) {
+                return false;
+            }
+            this.fill();
+        }
+        return true;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (this.block == null) {
+            this.last = this.taken++;
+            return this.arcs.nextInt();
+        }
+        this.last = this.index[this.position];
+        return this.block[this.position++];
+    }
+
+    // index returns the index of the successor returned last among all arcs of the node.
+    public int index() {
+        return this.last;
+    }
+
+    // fill takes the next block of successors and drops the dead ones.
+    private void fill() {
+        this.size = 0;
+        this.position = 0;
+        while (this.size < this.block.length && this.arcs.hasNext()) {
+            this.index[this.size] = this.taken++;
+            this.block[this.size++] = this.arcs.nextInt();
+        }
+
+        // Resolve all roots first, then read their status.
+        for (int i = 0; i < this.size; i++) {
+            this.roots[i] = this.unionfind.find(this.block[i] + 1);
+        }
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (this.unionfind.node(this.roots[i]).ufStatus() != UFNode.UFStatus.UFdead) {
+                this.block[kept] = this.block[i];
+                this.index[kept] = this.index[i];
+                kept++;
+            }
+        }
+        this.size = kept;
+    }
+
+}
@@ -0,0 +1,299 @@
+package tarjanUF;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Benchmark measures how the engines scale with the number of threads on a single graph.
+// The graph is loaded once and every combination of engine and thread count is run in the
+// same JVM, first a number of warm up runs which let the JIT compile the hot paths, then the
+// measured trials. Only the search is timed, not the input or the output.
+//
+// For every combination the median, mean, variance, minimum and maximum of the trial runtimes
+// are reported along with the peak heap usage. The speedup is the median of the smallest
+// thread count of the engine divided by the median, the parallel efficiency is the speedup
+// per thread relative to that smallest thread count.
+public class Benchmark {
+
+    // Result holds the measurements of one engine at one thread count.
+    public static class Result {
+        public final ConcurrentFastSCC.Engine engine;
+        public final int threads;
+        // The runtime of every trial.
+        public final long[] nanos;
+        public long peakHeap;
+        public int sccs;
+        public double speedup;
+        public double efficiency;
+
+        // Constructor.
+        public Result(final ConcurrentFastSCC.Engine engine, final int threads, final int trials) {
+            this.engine = engine;
+            this.threads = threads;
+            this.nanos = new long[trials];
+        }
+
+        public long median() {
+            final long[] sorted = this.nanos.clone();
+            Arrays.sort(sorted);
+            final int m = sorted.length / 2;
+            return (sorted.length % 2 == 1) ? sorted[m] : (sorted[m - 1] + sorted[m]) / 2;
+        }
+
+        public double mean() {
+            double sum = 0;
+            for (long t: this.nanos) {
+                sum += t;
+            }
+            return sum / this.nanos.length;
+        }
+
+        // variance returns the sample variance of the runtimes.
+        public double variance() {
+            if (this.nanos.length < 2) {
+                return 0;
+            }
+            final double mean = this.mean();
+            double sum = 0;
+            for (long t: this.nanos) {
+                sum += (t - mean) * (t - mean);
+            }
+            return sum / (this.nanos.length - 1);
+        }
+
+        public long min() {
+            return Arrays.stream(this.nanos).min().getAsLong();
+        }
+
+        public long max() {
+            return Arrays.stream(this.nanos).max().getAsLong();
+        }
+    }
+
+    private final DirectedGraph graph;
+    private final List<Integer> initNodes;
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+    private UF.LinkPolicy linkPolicy = UF.LinkPolicy.index;
+
+    // Constructor.
+    public Benchmark(final DirectedGraph graph, final List<Integer> initNodes) {
+        this.graph = graph;
+        this.initNodes = initNodes;
+        for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                this.heapPools.add(pool);
+            }
+        }
+    }
+
+    // setLinkPolicy sets how the union find roots are linked in all runs.
+    public void setLinkPolicy(final UF.LinkPolicy linkPolicy) {
+        this.linkPolicy = linkPolicy;
+    }
+
+    // run searches the SCCs once with `engine` on `threads` threads and returns the runtime.
+    // The number of SCCs found is stored in `result`.
+    private long run(final ConcurrentFastSCC.Engine engine, final int threads, final Result result) {
+        final ConcurrentFastSCC algorithm = new ConcurrentFastSCC();
+        algorithm.setEngine(engine);
+        // Measure the engine asked for, even on a single thread.
+        algorithm.setSequentialThreshold(-1);
+        // The worker sets are sized by the number of workers.
+        UFNode.workerCount = threads;
+        final UF unionfind = new UF(this.graph.N() + 1, threads, this.linkPolicy);
+
+        // Start every run from a collected heap, so that the peak is that of this run.
+        System.gc();
+        for (MemoryPoolMXBean pool: this.heapPools) {
+            pool.resetPeakUsage();
+        }
+        final long start = System.nanoTime();
+        algorithm.search(this.graph, new ArrayList<Integer>(this.initNodes), unionfind, threads);
+        final long duration = System.nanoTime() - start;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool: this.heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        int sccs = 0;
+        for (int v = 1; v <= this.graph.N(); v++) {
+            if (unionfind.find(v) == v) {
+                sccs++;
+            }
+        }
+        if (result != null) {
+            result.peakHeap = Math.max(result.peakHeap, peak);
+            if (result.sccs != 0 && result.sccs != sccs) {
+                throw new IllegalStateException(engine + " with " + threads + " threads found " + sccs + " SCCs instead of " + result.sccs);
+            }
+            result.sccs = sccs;
+        }
+        return duration;
+    }
+
+    // measure runs every engine at every thread count, `warmup` times unmeasured and then
+    // `trials` times measured.
+    public List<Result> measure(final List<ConcurrentFastSCC.Engine> engines, final int[] threads, final int warmup, final int trials) {
+        final List<Result> results = new ArrayList<Result>();
+        for (ConcurrentFastSCC.Engine engine: engines) {
+            Result baseline = null;
+            for (int t: threads) {
+                final Result result = new Result(engine, t, trials);
+                for (int i = 0; i < warmup; i++) {
+                    this.run(engine, t, null);
+                }
+                for (int i = 0; i < trials; i++) {
+                    result.nanos[i] = this.run(engine, t, result);
+                }
+                if (baseline == null) {
+                    baseline = result;
+                }
+                result.speedup = (double) baseline.median() / result.median();
+                result.efficiency = result.speedup * baseline.threads / t;
+                System.err.println("Benchmarked " + engine + " with " + t + " threads: median " + result.median());
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    // writeCSV writes the results with a header line to `out`.
+    public static void writeCSV(final String graph, final List<Result> results, final PrintWriter out) {
+        out.println("graph,engine,threads,trials,median_ns,mean_ns,variance_ns2,min_ns,max_ns,speedup,efficiency,peak_heap_bytes,sccs");
+        for (Result r: results) {
+            out.println(graph + "," + r.engine + "," + r.threads + "," + r.nanos.length + "," + r.median() + ","
+                + r.mean() + "," + r.variance() + "," + r.min() + "," + r.max() + "," + r.speedup + ","
+                + r.efficiency + "," + r.peakHeap + "," + r.sccs);
+        }
+        out.flush();
+    }
+
+    // writeJSON writes the results, including the runtime of every trial, to `filename`.
+    public static void writeJSON(final String graph, final List<Result> results, final String filename) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(filename))) {
+            out.println("{");
+            out.println("  \"graph\": \"" + graph.replace("\\", "\\\\").replace("\"", "\\\"") + "\",");
+            out.println("  \"processors\": " + Runtime.getRuntime().availableProcessors() + ",");
+            out.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                final Result r = results.get(i);
+                final StringBuilder nanos = new StringBuilder();
+                for (long t: r.nanos) {
+                    nanos.append((nanos.length() == 0) ? "" : ", ").append(t);
+                }
+                out.println("    {\"engine\": \"" + r.engine + "\", \"threads\": " + r.threads
+                    + ", \"median_ns\": " + r.median() + ", \"mean_ns\": " + r.mean()
+                    + ", \"variance_ns2\": " + r.variance() + ", \"min_ns\": " + r.min() + ", \"max_ns\": " + r.max()
+                    + ", \"speedup\": " + r.speedup + ", \"efficiency\": " + r.efficiency
+                    + ", \"peak_heap_bytes\": " + r.peakHeap + ", \"sccs\": " + r.sccs
+                    + ", \"trials_ns\": [" + nanos + "]}" + ((i + 1 < results.size()) ? "," : ""));
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    public static void main(String[] args) {
+        // The tool requires 2 parameters in its input.
+        // 1. The graph to be processed.
+        // 2. The set of intital nodes from which entire graph can be discoverd.
+        // Any further parameters are options:
+        //      --engines <e1,e2,...>: The engines to measure, onTheFly by default.
+        //      --threads <t1,t2,...>: The thread counts, the powers of two up to the number of
+        //          available processors by default.
+        //      --warmup <n>: Number of unmeasured runs per combination, 2 by default.
+        //      --trials <n>: Number of measured runs per combination, 5 by default.
+        //      --link <index|random>: How the union find roots are linked, by index by default.
+        //      --compress: Search the graph with its arcs gap encoded in byte arrays.
+        //      --csv <file>: Write the results as CSV to file.
+        //      --json <file>: Write the results as JSON to file.
+        // The results are printed as CSV if neither --csv nor --json is given.
+        assert args.length >= 2;
+        final List<ConcurrentFastSCC.Engine> engines = new ArrayList<ConcurrentFastSCC.Engine>();
+        engines.add(ConcurrentFastSCC.Engine.onTheFly);
+        int[] threads = null;
+        int warmup = 2;
+        int trials = 5;
+        boolean compress = false;
+        UF.LinkPolicy linkPolicy = UF.LinkPolicy.index;
+        String csv = null;
+        String json = null;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engines":
+                    engines.clear();
+                    for (String engine: args[++i].split(",")) {
+                        engines.add(ConcurrentFastSCC.Engine.valueOf(engine));
+                    }
+                    break;
+                case "--threads":
+                    threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--trials":
+                    trials = Integer.parseInt(args[++i]);
+                    break;
+                case "--link":
+                    linkPolicy = UF.LinkPolicy.valueOf(args[++i]);
+                    break;
+                case "--compress":
+                    compress = true;
+                    break;
+                case "--csv":
+                    csv = args[++i];
+                    break;
+                case "--json":
+                    json = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException("--trials has to be at least 1");
+        }
+        if (threads == null) {
+            final List<Integer> powers = new ArrayList<Integer>();
+            for (int t = 1; t <= Runtime.getRuntime().availableProcessors(); t *= 2) {
+                powers.add(t);
+            }
+            threads = powers.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        try {
+            final Graph loaded = new Graph(args[0]);
+            final List<Integer> initNodes = new ArrayList<Integer>();
+            Main.readFile(loaded, args[0]);
+            Main.readInits(initNodes, args[1]);
+            final int maxThreads = Arrays.stream(threads).max().getAsInt();
+            final DirectedGraph graph = compress ? new CompressedGraph(loaded, maxThreads) : loaded;
+
+            final Benchmark benchmark = new Benchmark(graph, initNodes);
+            benchmark.setLinkPolicy(linkPolicy);
+            final List<Result> results = benchmark.measure(engines, threads, warmup, trials);
+            if (csv != null) {
+                try (PrintWriter out = new PrintWriter(new FileWriter(csv))) {
+                    writeCSV(args[0], results, out);
+                }
+            }
+            if (json != null) {
+                writeJSON(args[0], results, json);
+            }
+            if (csv == null && json == null) {
+                writeCSV(args[0], results, new PrintWriter(System.out));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+}
@@ -0,0 +1,356 @@
+package tarjanUF;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import tarjanUF.UFNode.ListStatus;
+import tarjanUF.UFNode.UFStatus;
+
+// Checkpointer periodically saves the state of a running search of `SCCWorker`s to a file, so
+// that a search interrupted by a crash or preemption can be resumed from it later. To take a
+// checkpoint every worker is stopped at a safe point, where it holds no lock of the union find
+// structure. Then the union find structure, the visited set and the stacks of every worker
+// are written out, and the workers continue.
+//
+// The snapshot starts with a header, followed by a fixed width record per union find node,
+// which allows the records to be written and read in parallel, and the worker states:
+//      header: magic, version, number of nodes, number of workers, longs per worker set
+//      node:   parent, listNext, ufStatus << 4 | listStatus, visited, worker set
+//      states: number of states, then for each the worker id, `v`, `backtrack`,
+//              the rootStack and the recursionStack, each preceded by its size
+public class Checkpointer {
+
+    private static final int MAGIC = 0x53434331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * 4;
+    // Number of node records moved through a single buffer.
+    private static final int BLOCK = 1 << 16;
+
+    // WorkerState is all a worker needs to continue its DFS: the id it is known by in the
+    // worker sets, the node it was about to enter or return to and its stacks. The partially
+    // consumed arc iterators are not stored, they are recreated from the number of arcs
+    // consumed, which is kept on the recursionStack.
+    public static class WorkerState {
+        public final int workerId;
+        public final int v;
+        public final boolean backtrack;
+        public final int[] rootStack;
+        public final int[] recursionStack;
+
+        // Constructor.
+        public WorkerState(final int workerId, final int v, final boolean backtrack,
+                           final int[] rootStack, final int[] recursionStack) {
+            this.workerId = workerId;
+            this.v = v;
+            this.backtrack = backtrack;
+            this.rootStack = rootStack;
+            this.recursionStack = recursionStack;
+        }
+    }
+
+    private final Path path;
+    // Milliseconds between the end of a checkpoint and the start of the next one.
+    private final long interval;
+    // Whether the snapshot is written and read through memory mapped buffers.
+    private final boolean mapped;
+
+    private UF unionfind;
+    private int numCores;
+    private ScheduledExecutorService scheduler;
+
+    // requested is set while a checkpoint waits for the workers or is being written.
+    private volatile boolean requested;
+    // Number of workers between `enter` and `exit`, guarded by this.
+    private int active;
+    // Number of checkpoints taken so far, guarded by this.
+    private long generation;
+    // States of the workers stopped at their safe point, guarded by this.
+    private final List<WorkerState> arrived = new ArrayList<WorkerState>();
+    // States of restored workers which did not start yet, guarded by this.
+    private final List<WorkerState> pending = new ArrayList<WorkerState>();
+
+    // Constructor.
+    public Checkpointer(final String path, final long interval, final boolean mapped) {
+        this.path = Paths.get(path);
+        this.interval = interval;
+        this.mapped = mapped;
+    }
+
+    // start takes a checkpoint of `unionfind` and the workers every `interval` milliseconds.
+    public void start(final UF unionfind, final int numCores) {
+        this.unionfind = unionfind;
+        this.numCores = numCores;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.scheduler.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // stop ends taking checkpoints, waiting for one being taken.
+    public void stop() {
+        this.scheduler.shutdown();
+        try {
+            this.scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // requested tells a worker at its safe point whether it should `arrive`.
+    public boolean requested() {
+        return this.requested;
+    }
+
+    // enter registers a worker which starts its DFS. `restored` is the state it resumes
+    // from, if any. Does not return while a checkpoint is being taken.
+    public synchronized void enter(final WorkerState restored) {
+        while (this.requested) {
+            this.await();
+        }
+        this.active++;
+        if (restored != null) {
+            this.pending.remove(restored);
+        }
+    }
+
+    // exit unregisters a worker which finished its DFS.
+    public synchronized void exit() {
+        this.active--;
+        this.notifyAll();
+    }
+
+    // arrive hands the state of a worker at its safe point to the checkpoint requested
+    // and returns once the checkpoint is written.
+    public synchronized void arrive(final WorkerState state) {
+        if (!this.requested) {
+            return;
+        }
+        this.arrived.add(state);
+        this.notifyAll();
+        final long current = this.generation;
+        while (this.generation == current) {
+            this.await();
+        }
+    }
+
+    // checkpoint stops all workers at their safe point and writes the snapshot.
+    // A failure to write is reported, but does not stop the search.
+    private synchronized void checkpoint() {
+        final long start = System.nanoTime();
+        this.requested = true;
+        try {
+            while (this.arrived.size() < this.active) {
+                this.await();
+            }
+            final List<WorkerState> states = new ArrayList<WorkerState>(this.arrived);
+            states.addAll(this.pending);
+            this.write(states);
+            System.err.println("Runtime for checkpoint: " + (System.nanoTime() - start));
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        } finally {
+            this.arrived.clear();
+            this.requested = false;
+            this.generation++;
+            this.notifyAll();
+        }
+    }
+
+    private void await() {
+        try {
+            this.wait();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // write saves the snapshot to a temporary file first, which then replaces the previous
+    // snapshot, so a crash while writing never leaves a broken snapshot behind.
+    private void write(final List<WorkerState> states) throws IOException {
+        final Path temporary = Paths.get(this.path + ".tmp");
+        final int n = this.unionfind.size();
+        final int units = UFNode.workerUnits();
+        final int record = recordBytes(units);
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(UFNode.workerCount).putInt(units);
+            header.flip();
+            writeFully(channel, header, 0);
+
+            // The records of the nodes, in parallel.
+            Parallel.forChunks((n + BLOCK - 1) / BLOCK, this.numCores, (from, to) -> {
+                for (int b = from; b < to; b++) {
+                    final int first = b * BLOCK;
+                    final int last = Math.min(n, first + BLOCK);
+                    final long position = HEADER_BYTES + (long) first * record;
+                    final int length = (last - first) * record;
+                    try {
+                        final ByteBuffer buffer = this.mapped
+                            ? channel.map(FileChannel.MapMode.READ_WRITE, position, length)
+                            : ByteBuffer.allocate(length);
+                        for (int i = first; i < last; i++) {
+                            final UFNode node = this.unionfind.node(i);
+                            buffer.putInt(node.parent());
+                            buffer.putInt(node.listNext());
+                            buffer.put((byte) (node.ufStatus().ordinal() << 4 | node.listStatus().ordinal()));
+                            buffer.put((byte) (this.unionfind.visited.get(i) ? 1 : 0));
+                            for (int u = 0; u < units; u++) {
+                                buffer.putLong(node.workerUnit(u));
+                            }
+                        }
+                        if (!this.mapped) {
+                            buffer.flip();
+                            writeFully(channel, buffer, position);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+
+            // The worker states.
+            int size = 4;
+            for (WorkerState state: states) {
+                size += 4 * 6 + 4 * (state.rootStack.length + state.recursionStack.length);
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(states.size());
+            for (WorkerState state: states) {
+                buffer.putInt(state.workerId).putInt(state.v).putInt(state.backtrack ? 1 : 0);
+                putInts(buffer, state.rootStack);
+                putInts(buffer, state.recursionStack);
+            }
+            buffer.flip();
+            writeFully(channel, buffer, HEADER_BYTES + (long) n * record);
+            channel.force(true);
+        }
+        Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // workerCount returns the number of workers of the search saved in the snapshot at `path`.
+    // A resumed search needs at least as many, as workers keep their ids.
+    public static int workerCount(final String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            final ByteBuffer header = readFully(channel, HEADER_BYTES, 0);
+            checkHeader(header);
+            return header.getInt(12);
+        }
+    }
+
+    // restore loads the snapshot into `unionfind`, which has to be created for the same graph,
+    // and returns the states of the workers to be resumed.
+    public List<WorkerState> restore(final UF unionfind, final int numCores) throws IOException {
+        final int n = unionfind.size();
+        final List<WorkerState> states = new ArrayList<WorkerState>();
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            final ByteBuffer header = readFully(channel, HEADER_BYTES, 0);
+            checkHeader(header);
+            if (header.getInt(8) != n) {
+                throw new IOException("The checkpoint " + this.path + " is of a graph with " + (header.getInt(8) - 1) + " nodes.");
+            }
+            final int units = header.getInt(16);
+            final int record = recordBytes(units);
+
+            Parallel.forChunks((n + BLOCK - 1) / BLOCK, numCores, (from, to) -> {
+                for (int b = from; b < to; b++) {
+                    final int first = b * BLOCK;
+                    final int last = Math.min(n, first + BLOCK);
+                    final long position = HEADER_BYTES + (long) first * record;
+                    final int length = (last - first) * record;
+                    try {
+                        final ByteBuffer buffer = this.mapped
+                            ? channel.map(FileChannel.MapMode.READ_ONLY, position, length)
+                            : readFully(channel, length, position);
+                        for (int i = first; i < last; i++) {
+                            final UFNode node = unionfind.node(i);
+                            UFNode.parentUpdater.set(node, buffer.getInt());
+                            UFNode.listNextUpdater.set(node, buffer.getInt());
+                            final byte status = buffer.get();
+                            UFNode.ufStatusUpdater.set(node, UFStatus.values()[status >> 4]);
+                            UFNode.listStatusUpdater.set(node, ListStatus.values()[status & 0xf]);
+                            unionfind.visited.set(i, buffer.get() != 0);
+                            for (int u = 0; u < units; u++) {
+                                node.setWorkerUnit(u, buffer.getLong());
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+
+            final long position = HEADER_BYTES + (long) n * record;
+            final ByteBuffer buffer = readFully(channel, (int) (channel.size() - position), position);
+            final int count = buffer.getInt();
+            for (int s = 0; s < count; s++) {
+                final int workerId = buffer.getInt();
+                final int v = buffer.getInt();
+                final boolean backtrack = buffer.getInt() != 0;
+                states.add(new WorkerState(workerId, v, backtrack, getInts(buffer), getInts(buffer)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        synchronized (this) {
+            this.pending.addAll(states);
+        }
+        return states;
+    }
+
+    private static int recordBytes(final int units) {
+        return 4 + 4 + 1 + 1 + 8 * units;
+    }
+
+    private static void checkHeader(final ByteBuffer header) throws IOException {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a checkpoint of this version.");
+        }
+    }
+
+    private static void putInts(final ByteBuffer buffer, final int[] values) {
+        buffer.putInt(values.length);
+        for (int value: values) {
+            buffer.putInt(value);
+        }
+    }
+
+    private static int[] getInts(final ByteBuffer buffer) {
+        final int[] values = new int[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final int length, long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("The checkpoint is truncated.");
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+}
@@ -0,0 +1,319 @@
+package tarjanUF;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+// CompressedGraph stores the adjacency lists of a graph in byte arrays. The successors of a
+// node are sorted and gap encoded as variable length integers, which typically takes 1-2
+// bytes per arc instead of the boxed Integer and list slot of `Graph`. Decoding costs a
+// little CPU, but far less memory has to be moved for every arc traversal.
+public class CompressedGraph implements DirectedGraph {
+
+    // Encoded adjacency lists are stored in pages of PAGE_SIZE bytes, so graphs with more
+    // than 2^31 bytes of arcs can be represented. A list never crosses a page boundary.
+    private static final int PAGE_BITS = 30;
+    private static final long PAGE_SIZE = 1L << PAGE_BITS;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+    private final byte[][] pages;
+    // The list of node `i` starts at byte offsets[i] of the concatenation of the pages.
+    // It consists of the degree followed by the zigzag encoded difference of the first
+    // successor to `i` and the gaps between consecutive successors.
+    private final long[] offsets;
+    private final String name;
+
+    // Constructor.
+    // Encodes the adjacency lists of `graph` in parallel with `numCores` threads.
+    public CompressedGraph(final DirectedGraph graph, final int numCores) {
+        final int n = graph.N();
+        this.name = (graph instanceof Graph) ? ((Graph) graph).getName().orElse(null) : null;
+
+        // First find the encoded size of every list.
+        final int[] sizes = new int[n];
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                sizes[v] = encode(v, sorted(graph, v), null, 0);
+            }
+        });
+
+        // Lay the lists out on pages.
+        this.offsets = new long[n + 1];
+        long offset = 0;
+        for (int v = 0; v < n; v++) {
+            if ((offset & PAGE_MASK) + sizes[v] > PAGE_SIZE) {
+                offset = (offset | PAGE_MASK) + 1;
+            }
+            this.offsets[v] = offset;
+            offset += sizes[v];
+        }
+        this.offsets[n] = offset;
+        final int pageCount = (int) (offset >>> PAGE_BITS) + 1;
+        this.pages = new byte[pageCount][];
+        for (int p = 0; p < pageCount; p++) {
+            final long end = Math.min(PAGE_SIZE, offset - ((long) p << PAGE_BITS));
+            this.pages[p] = new byte[(int) Math.max(end, 0)];
+        }
+
+        // Then encode them.
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                encode(v, sorted(graph, v), page(v), (int) (this.offsets[v] & PAGE_MASK));
+            }
+        });
+    }
+
+    // getName returns None if no name is assigned to graph
+    // else returns the name of the graph the lists were taken from.
+    public Optional<String> getName() {
+        return Optional.ofNullable(this.name);
+    }
+
+    @Override
+    public Integer N() {
+        return this.offsets.length - 1;
+    }
+
+    @Override
+    public int outDegree(final int id) {
+        final byte[] page = page(id);
+        int pos = (int) (this.offsets[id] & PAGE_MASK);
+        // Inline decoding of the degree, the first varint of the list.
+        int degree = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = page[pos++];
+            degree |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return degree;
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt arcs(final int id, final int start) {
+        return new Decoder(id, start);
+    }
+
+    // get returns a copy of the node `id` with its arcs decoded.
+    @Override
+    public GraphNode get(final int id) {
+        final GraphNode node = new GraphNode(id);
+        final PrimitiveIterator.OfInt arcs = arcs(id, 0);
+        while (arcs.hasNext()) {
+            node.getArcs().add(arcs.nextInt());
+        }
+        return node;
+    }
+
+    // node returns a node without arcs, the lists are not decoded.
+    @Override
+    public GraphNode node(final int id) {
+        return new GraphNode(id);
+    }
+
+    // bytes returns the number of bytes used by the encoded lists.
+    public long bytes() {
+        return this.offsets[this.offsets.length - 1];
+    }
+
+    // check decodes every list from the starts [0..3], degree - 1, degree and degree + 1 and
+    // compares it with the sorted list of `graph` rotated by the start, in parallel with
+    // `numCores` threads. Returns the number of lists which differ.
+    public long check(final DirectedGraph graph, final int numCores) {
+        final AtomicLong differences = new AtomicLong(0);
+        Parallel.forChunks(N(), numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final int[] expected = sorted(graph, v);
+                final int d = expected.length;
+                boolean equal = (outDegree(v) == d);
+                for (int start = 0; equal && start <= d + 1; start++) {
+                    if (start == 4 && d > 5) {
+                        start = d - 1;
+                    }
+                    final PrimitiveIterator.OfInt arcs = arcs(v, start);
+                    for (int i = 0; equal && i < d; i++) {
+                        equal = arcs.hasNext() && arcs.nextInt() == expected[(start + i) % d];
+                    }
+                    equal = equal && !arcs.hasNext();
+                }
+                if (!equal) {
+                    if (differences.incrementAndGet() <= 10) {
+                        System.out.println("The list of node " + v + " differs.");
+                    }
+                }
+            }
+        });
+        return differences.get();
+    }
+
+    private byte[] page(final int id) {
+        return this.pages[(int) (this.offsets[id] >>> PAGE_BITS)];
+    }
+
+    // Decoder iterates over the successors of a node, starting with the successor at index
+    // `start` modulo the degree. As the list can only be decoded from its beginning, the
+    // first `start` successors are decoded and skipped, and decoded again after the wrap.
+    private class Decoder implements PrimitiveIterator.OfInt {
+
+        private final byte[] page;
+        private final int id;
+        // Position of the first gap, i.e. right after the degree.
+        private final int begin;
+        private final int degree;
+        // Index of the first successor to be returned.
+        private final int first;
+        // pos is the position of the next varint, index the index of the successor it
+        // encodes and value the successor at index - 1.
+        private int pos;
+        private int index;
+        private int value;
+        // Number of successors returned so far.
+        private int returned;
+
+        Decoder(final int id, final int start) {
+            this.page = page(id);
+            this.id = id;
+            int p = (int) (offsets[id] & PAGE_MASK);
+            int d = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = page[p++];
+                d |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            this.degree = d;
+            this.begin = p;
+            this.first = (d == 0) ? 0 : start % d;
+            rewind();
+            while (this.index < this.first) {
+                step();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.returned < this.degree;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (this.index == this.degree) {
+                rewind();
+            }
+            this.returned++;
+            return step();
+        }
+
+        private void rewind() {
+            this.pos = this.begin;
+            this.index = 0;
+            this.value = this.id;
+        }
+
+        // step decodes the successor at `index` and advances.
+        private int step() {
+            int gap = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = this.page[this.pos++];
+                gap |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (this.index == 0) {
+                // The first successor is stored relative to the node itself.
+                this.value = this.id + ((gap >>> 1) ^ -(gap & 1));
+            } else {
+                this.value += gap;
+            }
+            this.index++;
+            return this.value;
+        }
+    }
+
+    // sorted returns the successors of `v` in increasing order.
+    private static int[] sorted(final DirectedGraph graph, final int v) {
+        final int[] arcs = new int[graph.outDegree(v)];
+        final PrimitiveIterator.OfInt it = graph.arcs(v, 0);
+        for (int i = 0; i < arcs.length; i++) {
+            arcs[i] = it.nextInt();
+        }
+        Arrays.sort(arcs);
+        return arcs;
+    }
+
+    // encode writes the list of `v` into `out` at `pos` and returns its length in bytes.
+    // Only computes the length if `out` is null.
+    private static int encode(final int v, final int[] arcs, final byte[] out, final int pos) {
+        int p = writeVarint(arcs.length, out, pos);
+        for (int i = 0; i < arcs.length; i++) {
+            if (i == 0) {
+                final int delta = arcs[0] - v;
+                p = writeVarint((delta << 1) ^ (delta >> 31), out, p);
+            } else {
+                p = writeVarint(arcs[i] - arcs[i - 1], out, p);
+            }
+        }
+        return p - pos;
+    }
+
+    private static int writeVarint(int value, final byte[] out, int pos) {
+        while ((value & ~0x7f) != 0) {
+            if (out != null) {
+                out[pos] = (byte) ((value & 0x7f) | 0x80);
+            }
+            pos++;
+            value >>>= 7;
+        }
+        if (out != null) {
+            out[pos] = (byte) value;
+        }
+        return pos + 1;
+    }
+
+    public static void main(String[] args) {
+        // The tool requires 1 parameter in its input.
+        // 1. The edge list whose encoding is checked.
+        // Any further parameters are options:
+        //      --threads <t>: Number of threads, all available processors by default.
+        // Exits with status 1 if a decoded list differs from the original one.
+        assert args.length >= 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        final Graph graph = new Graph(args[0]);
+        try {
+            Main.readFile(graph, args[0]);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+        final long start = System.nanoTime();
+        final CompressedGraph compressed = new CompressedGraph(graph, threads);
+        System.err.println("Runtime for compression: " + (System.nanoTime() - start));
+        final long differences = compressed.check(graph, threads);
+        System.err.println("Runtime for check: " + (System.nanoTime() - start));
+
+        if (differences > 0) {
+            System.out.println(differences + " lists differ.");
+            System.exit(1);
+        }
+        System.out.println("The lists are equal.");
+    }
+
+}
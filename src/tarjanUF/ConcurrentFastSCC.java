@@ -1,19 +1,156 @@
 package tarjanUF;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.function.IntPredicate;
 
 public class ConcurrentFastSCC {
 
+    // Engine selects the algorithm used to find the SCCs:
+    // 1. onTheFly:
+    //      The concurrent union find based DFS of `SCCWorker`. Explores the graph from the
+    //      initial nodes and therefore works best with a wide DFS frontier.
+    // 2. forwardBackward:
+    //      The parallel forward-backward search with trimming and coloring of `ForwardBackward`.
+    //      Requires the whole graph and a reverse index of it, but scales on graphs with a
+    //      single giant SCC.
+    // 3. sequential:
+    //      The iterative Tarjan of `SequentialTarjan` on plain arrays. Free of atomics, hence
+    //      the fastest choice with a single thread.
+    public enum Engine {
+        onTheFly, forwardBackward, sequential;
+    };
+
+    private Engine engine = Engine.onTheFly;
+
+    // setEngine selects the algorithm used by `searchSCCs`.
+    public void setEngine(final Engine engine) {
+        this.engine = engine;
+    }
+
+    // sequentialThreshold is the number of nodes below which `onTheFly` is replaced by `sequential`.
+    private int sequentialThreshold = 10000;
+
+    // setSequentialThreshold sets the size of graph below which, or when running on a single
+    // thread, the `onTheFly` engine is replaced by the `sequential` engine. A negative threshold
+    // disables the replacement.
+    public void setSequentialThreshold(final int sequentialThreshold) {
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    // order is the order in which nodes are renumbered before the search, null if they are not.
+    private Reordering.Order order;
+
+    // setReordering makes `searchSCCs` renumber the nodes in the given order before the search
+    // to improve locality. The SCCs returned are mapped back to the original ids.
+    // A null order disables renumbering.
+    public void setReordering(final Reordering.Order order) {
+        this.order = order;
+    }
+
+    // trim enables the trimming phase which removes trivial SCCs before the search.
+    private boolean trim;
+
+    // setTrim enables or disables the parallel trimming phase. When enabled, nodes which
+    // can never be part of a cycle are marked dead in the union find structure before the
+    // workers start, so the concurrent DFS only runs on the non-trivial core of the graph.
+    public void setTrim(final boolean trim) {
+        this.trim = trim;
+    }
+
+    // checkpointer takes checkpoints of the `onTheFly` search, null if none are taken.
+    private Checkpointer checkpointer;
+    // resume makes the search continue from the checkpoint of `checkpointer`.
+    private boolean resume;
+
+    // setCheckpointer makes the `onTheFly` search take checkpoints with `checkpointer`,
+    // and if `resume` is set continue from its last checkpoint instead of starting anew.
+    // A resumed search has to be run on the same graph, initial nodes and options.
+    // The replacement by the `sequential` engine is disabled, as it cannot be checkpointed.
+    public void setCheckpointer(final Checkpointer checkpointer, final boolean resume) {
+        this.checkpointer = checkpointer;
+        this.resume = resume;
+    }
+
+    // adaptive lets the number of `onTheFly` workers adapt to the contention measured.
+    private boolean adaptive;
+
+    // setAdaptive enables or disables the adaptive mode of the `onTheFly` engine. Instead of
+    // all `numCores` workers, only the number of workers found to give the best throughput
+    // explore at the same time. Starts with a few workers.
+    public void setAdaptive(final boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    // batch is the number of successors whose roots `SCCWorker` resolves at once, 1 for none.
+    private int batch = 1;
+
+    // setBatch sets the number of successors of a node whose union find roots are resolved
+    // together by the `onTheFly` workers, dropping dead successors before claiming any.
+    // A batch of 1, the default, resolves every successor only when it is claimed.
+    public void setBatch(final int batch) {
+        this.batch = batch;
+    }
+
+    // reclaim frees the per node data of dead SCCs during the `onTheFly` search.
+    private boolean reclaim;
+
+    // setReclaim enables or disables freeing the arcs and worker sets of the
+    // nodes of dead SCCs while the `onTheFly` search is running. The arcs are dropped from
+    // the graph searched, so a graph searched with reclaiming cannot be searched again.
+    public void setReclaim(final boolean reclaim) {
+        this.reclaim = reclaim;
+    }
+
+    // executor runs the `onTheFly` workers, null if every search creates a pool of its own.
+    private ExecutorService executor;
+
+    // setExecutor makes the `onTheFly` search run its workers on `executor`, which may be
+    // shared with other searches running at the same time, instead of a pool of its own.
+    // At most `numCores` workers of the search occupy threads of `executor` at a time.
+    // The executor is not shut down by the search.
+    public void setExecutor(final ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    // The predicates restricting the search to a subgraph, null if all nodes or arcs are searched.
+    private IntPredicate nodeFilter;
+    private FilteredGraph.ArcFilter arcFilter;
+
+    // setFilter restricts the search to the subgraph of the nodes accepted by `nodes` and the
+    // arcs between them accepted by `arcs`, either of which may be null to accept all. The arcs
+    // are filtered while the engines iterate over them, so the graph is not copied. The nodes
+    // not accepted are left out of the SCCs returned and are not searched from.
+    public void setFilter(final IntPredicate nodes, final FilteredGraph.ArcFilter arcs) {
+        this.nodeFilter = nodes;
+        this.arcFilter = arcs;
+    }
+
+    // The listener told about every SCC found, null if there is none.
+    private SCCListener listener;
+
+    // setListener makes the search call `listener` with every SCC found. The SCCs the
+    // onTheFly engine marks dead are reported while the search is running, off the workers'
+    // threads, the rest once it is done. These are all SCCs found by the other engines or
+    // with reordering or resumed from a checkpoint, and the nodes never reached.
+    public void setListener(final SCCListener listener) {
+        this.listener = listener;
+    }
+
     // requiredProcessors returns the number of processors to be used in the algorithm.
     // If threads == -1 then maximum number of available processors is returned.
     public static int requiredProcessors(final int threads) {
@@ -27,59 +164,239 @@ public class ConcurrentFastSCC {
         return availableProcessors;
     }
 
-    // searchSCCs initiates `numCores` instances of the SCC algorithm.
-    public Map<Integer, Set<GraphNode>> searchSCCs(final Graph graph, final List<Integer> initNodes, final UF unionfind, final int numCores) {
-        final ExecutorService executor = Executors.newFixedThreadPool(numCores);
-        // workers are not necessarily assigned integer consecutive ids. This is used to map them
-        // to [0..`numCores` - 1]
-        final Map<Long, Integer> workerMap = new ConcurrentHashMap<Long, Integer>();
-        // workerCount is the counter for workerMap.
-        final AtomicInteger workerCount = new AtomicInteger(0);
-
-        final long start = System.nanoTime();
+    // searchSCCs initiates `numCores` instances of the SCC algorithm and returns the nodes
+    // of every SCC found by its representative.
+    public Map<Integer, Set<GraphNode>> searchSCCs(final DirectedGraph graph, List<Integer> initNodes, final UF unionfind, final int numCores) {
+        this.search(graph, initNodes, unionfind, numCores);
 
-        // Initilly queue each node in `initNodes` for a DFS traversal.
-        for (int i = 0; i < initNodes.size(); i++) {
-            int nodeId = initNodes.get(i);
-            if (unionfind.visited.get(nodeId) == false) {
-                executor.execute(new SCCWorker(graph, workerMap, workerCount, nodeId, unionfind));
+        final SCCEvents.ResultAssembly event = new SCCEvents.ResultAssembly();
+        event.begin();
+        // Organise the SCCs found in a Map of Sets. Map is required to keep track
+        // of roots of a union find tree.
+        final Map<Integer, Set<GraphNode>> result = new HashMap<Integer, Set<GraphNode>>();
+        for (int i = 0; i < graph.N(); i++) {
+            if (this.nodeFilter != null && !this.nodeFilter.test(i)) {
+                continue;
             }
+            int root = unionfind.find(i + 1) - 1;
+            if (!result.containsKey(root)) {
+                result.put(root, new HashSet<GraphNode>());
+            }
+            result.get(root).add(graph.node(i));
         }
-        // If still some threads are ideal, queue the same nodes again.
-        // This is not redundant as a node is explored in a randomized fashion
-        // by a thread. More specifically, a thread with id `a` will explore with `a` offset.
-        if (initNodes.size() < numCores) {
-            int leftCores = numCores - initNodes.size();
-            for (int i = 0; i < leftCores; i++) {
-                int nodeId = initNodes.get(i % initNodes.size());
-                if (unionfind.visited.get(nodeId) == false) {
-                    executor.execute(new SCCWorker(graph, workerMap, workerCount, nodeId, unionfind));
+        event.sccs = result.size();
+        event.commit();
+        return result;
+    }
+
+    // search finds the SCCs like `searchSCCs`, but leaves them in `unionfind` only, where node
+    // `v` belongs to the SCC represented by `unionfind.find(v + 1) - 1`. Aggregates can be
+    // read from there by `SCCSummary` without building the sets of nodes.
+    public void search(DirectedGraph graph, List<Integer> initNodes, final UF unionfind, final int numCores) {
+        final long start = System.nanoTime();
+        if (this.nodeFilter != null || this.arcFilter != null) {
+            final FilteredGraph filtered = new FilteredGraph(graph, this.nodeFilter, this.arcFilter);
+            final List<Integer> accepted = new ArrayList<Integer>();
+            for (int v: initNodes) {
+                if (filtered.contains(v)) {
+                    accepted.add(v);
                 }
             }
+            graph = filtered;
+            initNodes = accepted;
         }
-        // Block the executor's queue from further queueing.
-        executor.shutdown();
-        try {
-            // Await the termination of all threads.
-            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        final SCCEvents.Search event = new SCCEvents.Search();
+        event.begin();
+        final SCCStream stream = (this.listener != null) ? new SCCStream(unionfind, this.listener, this.nodeFilter) : null;
+        if (stream != null) {
+            // The member lists of the sets restored from a checkpoint or of a renumbered
+            // graph are not known, those SCCs are reported by `finish`.
+            if (this.order == null && !this.resume) {
+                unionfind.setStream(stream);
+            }
+            stream.start();
         }
+        if (this.checkpointer != null && (this.order != null || this.engine != Engine.onTheFly)) {
+            throw new IllegalArgumentException("Checkpoints are only taken by the onTheFly engine without reordering.");
+        }
+
+        if (this.order != null) {
+            final long reorderStart = System.nanoTime();
+            final Reordering reordering = new Reordering(graph, initNodes, this.order, numCores);
+            final Graph permuted = reordering.permute(graph, numCores);
+            System.err.println("Runtime for reordering: " + (System.nanoTime() - reorderStart));
 
+            // Search the renumbered graph in `unionfind` under the new ids.
+            this.decompose(permuted, reordering.permute(initNodes), unionfind, numCores);
+
+            // Map the SCCs found back to the original ids. All roots are taken before the
+            // first node is reassigned, so only an int per node is needed on top.
+            final int[] roots = new int[graph.N()];
+            Parallel.forChunks(graph.N(), numCores, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    roots[v] = reordering.oldId(unionfind.find(reordering.newId(v) + 1) - 1);
+                }
+            });
+            Parallel.forChunks(graph.N(), numCores, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    unionfind.assignSCC(v + 1, roots[v] + 1);
+                }
+            });
+        } else {
+            this.decompose(graph, initNodes, unionfind, numCores);
+        }
+        if (stream != null) {
+            stream.finish(graph.N());
+        }
+
+        event.engine = this.engine.toString();
+        event.threads = numCores;
+        event.nodes = graph.N();
+        event.commit();
         final long duration = System.nanoTime() - start;
         System.err.println("Runtime for algorithm: " + duration);
+        final SpinPolicy spinPolicy = unionfind.spinPolicy();
+        if (spinPolicy.iterations() > 0) {
+            System.err.println("Runtime for spinning: " + spinPolicy.nanos() + " in " + spinPolicy.iterations() + " waits (" + spinPolicy + ").");
+        }
+    }
 
-        // Organise the SCCs found in a Map of Sets. Map is required to keep track
-        // of roots of a union find tree.
-        final Map<Integer, Set<GraphNode>> result = new HashMap<Integer, Set<GraphNode>>();
-        for (int i = 0; i < graph.N(); i++) {
-            int root = unionfind.find(i + 1) - 1;
-            if (!result.containsKey(root)) {
-                result.put(root, new HashSet<GraphNode>());
+    // decompose runs the selected engine, leaving the SCCs found in `unionfind`.
+    private void decompose(final DirectedGraph graph, final List<Integer> initNodes, final UF unionfind, final int numCores) {
+        Engine engine = this.engine;
+        // The concurrent algorithm does not pay off for a single thread or a small graph,
+        // unless an option only the workers implement is set.
+        if (engine == Engine.onTheFly && !this.needsWorkers() && sequentialThreshold >= 0 && (numCores == 1 || graph.N() < sequentialThreshold)) {
+            System.err.println("Using the sequential engine.");
+            engine = Engine.sequential;
+        }
+
+        if (engine == Engine.forwardBackward) {
+            new ForwardBackward(graph, new ReverseIndex(graph, numCores), numCores).run(unionfind);
+        } else if (engine == Engine.sequential) {
+            new SequentialTarjan(graph).run(initNodes, unionfind);
+        } else {
+            this.runWorkers(graph, initNodes, unionfind, numCores);
+        }
+    }
+
+    // needsWorkers checks if an option is set which only `runWorkers` implements, so that
+    // the `onTheFly` engine cannot be replaced by the `sequential` engine.
+    private boolean needsWorkers() {
+        return this.checkpointer != null || this.trim || this.reclaim || this.adaptive || this.batch > 1;
+    }
+
+    // runWorkers runs `numCores` instances of `SCCWorker` from the initial nodes.
+    private void runWorkers(final DirectedGraph graph, List<Integer> initNodes, final UF unionfind, final int numCores) {
+        // The restored workers, which are run before any new one.
+        final Queue<SCCWorker> tasks = new ConcurrentLinkedQueue<SCCWorker>();
+        // The worker ids [1..`numCores`] not taken by a running worker. The lowest is taken
+        // first, so the ids above 64, which do not fit into the inline word of the worker
+        // sets, are only used while more than 64 workers run at once.
+        final Queue<Integer> freeIds = new PriorityBlockingQueue<Integer>();
+        // Attached before trimming, so that the trimmed nodes are reclaimed too.
+        final Reclaimer reclaimer = this.reclaim ? new Reclaimer(graph, unionfind) : null;
+
+        if (this.trim) {
+            final long trimStart = System.nanoTime();
+            final Trimmer trimmer = new Trimmer(graph, new ReverseIndex(graph, numCores), unionfind);
+            System.err.println("Trimmed nodes: " + trimmer.trim(numCores));
+            // The remaining nodes might only be reachable through trimmed ones.
+            initNodes = trimmer.seeds(initNodes);
+            System.err.println("Runtime for trimming: " + (System.nanoTime() - trimStart));
+        }
+
+        final AdaptiveController controller = this.adaptive ? new AdaptiveController(unionfind, numCores) : null;
+
+        // Continue the workers of the checkpoint first, they keep their ids.
+        List<Checkpointer.WorkerState> restored = new ArrayList<Checkpointer.WorkerState>();
+        if (this.resume) {
+            final long restoreStart = System.nanoTime();
+            try {
+                restored = this.checkpointer.restore(unionfind, numCores);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            System.err.println("Restored workers: " + restored.size());
+            System.err.println("Runtime for restore: " + (System.nanoTime() - restoreStart));
+        }
+        final Set<Integer> restoredIds = new HashSet<Integer>();
+        for (Checkpointer.WorkerState state: restored) {
+            restoredIds.add(state.workerId);
+            tasks.add(new SCCWorker(graph, freeIds, unionfind, this.checkpointer, controller, this.batch, state));
+        }
+        for (int id = 1; id <= numCores; id++) {
+            if (!restoredIds.contains(id)) {
+                freeIds.add(id);
+            }
+        }
+        if (this.checkpointer != null) {
+            this.checkpointer.start(unionfind, numCores);
+        }
+        if (controller != null) {
+            controller.start();
+        }
+        if (reclaimer != null) {
+            reclaimer.start();
+        }
+
+        // A DFS traversal is started from each node in `initNodes` in turn. If still some
+        // threads are ideal, the same nodes are taken again. This is not redundant as a node
+        // is explored in a randomized fashion by a thread. More specifically, a thread with
+        // id `a` will explore with `a` offset.
+        final List<Integer> roots = initNodes;
+        final int starts = (!roots.isEmpty() && roots.size() < numCores) ? numCores : roots.size();
+        // The index of the next start.
+        final AtomicInteger next = new AtomicInteger(0);
+        // Run the workers on `numCores` threads, each taking the next worker when its worker
+        // is done. Hence at most `numCores` worker ids are ever taken. A new worker is only
+        // built once a thread is free to run it and only if its node is not visited by then.
+        final ExecutorService executor = (this.executor != null) ? this.executor : Executors.newFixedThreadPool(numCores);
+        final List<Future<?>> threads = new ArrayList<Future<?>>();
+        for (int i = 0; i < numCores; i++) {
+            threads.add(executor.submit(() -> {
+                while (true) {
+                    SCCWorker task = tasks.poll();
+                    if (task == null) {
+                        final int start = next.getAndIncrement();
+                        if (start >= starts) {
+                            break;
+                        }
+                        final int nodeId = roots.get(start % roots.size());
+                        if (unionfind.visited.get(nodeId)) {
+                            continue;
+                        }
+                        task = new SCCWorker(graph, freeIds, nodeId, unionfind, this.checkpointer, controller, this.batch);
+                    }
+                    task.run();
+                    unionfind.flushDeaths();
+                }
+            }));
+        }
+        try {
+            // Await the termination of all threads.
+            for (Future<?> thread: threads) {
+                thread.get();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (ExecutionException e) {
+            // Do not swallow failures, e.g. failed assertions, of a worker.
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (this.executor == null) {
+                executor.shutdown();
+            }
+            if (this.checkpointer != null) {
+                this.checkpointer.stop();
+            }
+            if (controller != null) {
+                controller.stop();
+            }
+            if (reclaimer != null) {
+                reclaimer.stop();
             }
-            result.get(root).add(graph.get(i));
         }
-        return result;
     }
 
 }
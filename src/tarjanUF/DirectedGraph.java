@@ -0,0 +1,36 @@
+package tarjanUF;
+
+import java.util.PrimitiveIterator;
+
+// DirectedGraph is the view of a graph the SCC engines work on. Its nodes are the
+// contiguous integers [0..N() - 1].
+public interface DirectedGraph {
+
+    // N returns the number of nodes in the graph.
+    Integer N();
+
+    // outDegree returns the number of outgoing arcs of `id`.
+    int outDegree(int id);
+
+    // arcs returns an iterator over the successors of `id`, starting with the successor
+    // at index `start` modulo the degree and wrapping around, so that different workers
+    // can explore the successors of a node in different orders.
+    PrimitiveIterator.OfInt arcs(int id, int start);
+
+    // get returns the node with node.id == id.
+    GraphNode get(int id);
+
+    // node returns a node with node.id == id for reporting it in an SCC, its arcs are not
+    // needed. Graphs which do not hold a `GraphNode` per node return a new node without arcs,
+    // so that collecting the SCCs does not read all arcs back into lists.
+    default GraphNode node(int id) {
+        return this.get(id);
+    }
+
+    // release tells that the arcs of `id` will not be traversed any more, so a graph may
+    // free them. Afterwards `id` may appear to have no arcs. Graphs whose storage cannot be
+    // freed per node keep the arcs.
+    default void release(int id) {
+    }
+
+}
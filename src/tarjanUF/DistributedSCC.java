@@ -0,0 +1,225 @@
+package tarjanUF;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+// DistributedSCC decomposes a graph with several worker processes on the local machine, each
+// holding only the part of the graph and of the per node state it owns, so that graphs larger
+// than a single heap can be processed. The workers run the coloring algorithm in supersteps:
+// colors are propagated forward until no worker changes any, then the SCC of every root is
+// spread backwards, and this repeats until every node is assigned. The coordinator detects
+// termination of each phase as a superstep in which all frontiers are empty.
+//
+// The coordinator reads the edge list once and sends every arc to the owners of its ends, so
+// the input is parsed once however many workers there are. Before the coloring the workers
+// trim the nodes without a live predecessor or successor, which are SCCs on their own and
+// would otherwise cost the coloring a round each on chain-like graphs.
+public class DistributedSCC {
+
+    // The number of arcs sent to a worker at once while partitioning the input.
+    private static final int PARTITION_BATCH = 4096;
+
+    private final int workers;
+    private final List<Process> processes = new ArrayList<Process>();
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+
+    // Constructor.
+    public DistributedSCC(final int workers) {
+        this.workers = workers;
+        this.in = new DataInputStream[workers];
+        this.out = new DataOutputStream[workers];
+    }
+
+    // run decomposes the graph in the edge list `filename` with `workers` processes.
+    // Returns the representative of the SCC of every node.
+    public int[] run(final String filename) throws IOException {
+        try {
+            return this.decompose(filename);
+        } finally {
+            // Do not leave workers behind if the decomposition failed.
+            for (Process process: processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    private int[] decompose(final String filename) throws IOException {
+        final long start = System.nanoTime();
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            // Start the workers with the classpath and the JVM options of this JVM.
+            final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int i = 0; i < workers; i++) {
+                final List<String> command = new ArrayList<String>();
+                command.add(java);
+                command.addAll(jvmOptions());
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(DistributedWorker.class.getName());
+                command.add(InetAddress.getLoopbackAddress().getHostAddress());
+                command.add(Integer.toString(server.getLocalPort()));
+                command.add(Integer.toString(i));
+                command.add(Integer.toString(workers));
+                final ProcessBuilder builder = new ProcessBuilder(command);
+                builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+                builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+                processes.add(builder.start());
+            }
+
+            // Every worker tells its index and the port it accepts its peers on.
+            final int[] ports = new int[workers];
+            for (int i = 0; i < workers; i++) {
+                final Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                final DataInputStream din = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final int index = din.readInt();
+                ports[index] = din.readInt();
+                in[index] = din;
+                out[index] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            }
+            for (int i = 0; i < workers; i++) {
+                for (int port: ports) {
+                    out[i].writeInt(port);
+                }
+                out[i].flush();
+            }
+        }
+
+        final int n = this.partition(filename);
+        System.err.println("Runtime for distributed input: " + (System.nanoTime() - start));
+
+        long trimmed = 0;
+        long trimSteps = 0;
+        for (long removed = broadcast(DistributedWorker.CMD_TRIM_INIT); removed > 0; removed = broadcast(DistributedWorker.CMD_TRIM_STEP)) {
+            trimmed += removed;
+            trimSteps++;
+        }
+        System.err.println("Trimmed nodes: " + trimmed + " in " + trimSteps + " supersteps");
+
+        int rounds = 0;
+        long supersteps = 0;
+        while (broadcast(DistributedWorker.CMD_COLOR_INIT) > 0) {
+            do {
+                supersteps++;
+            } while (broadcast(DistributedWorker.CMD_COLOR_STEP) > 0);
+            broadcast(DistributedWorker.CMD_BACK_INIT);
+            do {
+                supersteps++;
+            } while (broadcast(DistributedWorker.CMD_BACK_STEP) > 0);
+            rounds++;
+        }
+        System.err.println("Coloring rounds: " + rounds + ", supersteps: " + supersteps);
+
+        // Collect the representatives from their owners.
+        final int[] scc = new int[n];
+        for (int i = 0; i < workers; i++) {
+            out[i].writeInt(DistributedWorker.CMD_RESULT);
+            out[i].flush();
+        }
+        for (int i = 0; i < workers; i++) {
+            final int local = in[i].readInt();
+            for (int l = 0; l < local; l++) {
+                scc[l * workers + i] = in[i].readInt();
+            }
+        }
+        for (Process process: processes) {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        return scc;
+    }
+
+    // partition reads the edge list `filename` once and sends every arc to the owner of its
+    // source and to the owner of its target, in batches of (source, target) pairs ended by an
+    // empty batch. Then it sends the number of nodes, which it returns.
+    private int partition(final String filename) throws IOException {
+        final int[][] batches = new int[workers][2 * PARTITION_BATCH];
+        final int[] sizes = new int[workers];
+        int max = -1;
+        final ExternalGraph.EdgeReader reader = new ExternalGraph.EdgeReader(filename);
+        try {
+            for (int u = reader.next(); u != -1; u = reader.next()) {
+                final int w = reader.next();
+                if (w == -1) {
+                    throw new IOException(filename + ": an edge lacks its target.");
+                }
+                max = Math.max(max, Math.max(u, w));
+                this.add(batches, sizes, u % workers, u, w);
+                if (w % workers != u % workers) {
+                    this.add(batches, sizes, w % workers, u, w);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        final int n = max + 1;
+        for (int i = 0; i < workers; i++) {
+            this.send(batches[i], sizes, i);
+            out[i].writeInt(0);
+            out[i].writeInt(n);
+            out[i].flush();
+        }
+        return n;
+    }
+
+    // add appends the arc (u, w) to the batch of worker `i`, sending the batch if it is full.
+    private void add(final int[][] batches, final int[] sizes, final int i, final int u, final int w) throws IOException {
+        batches[i][sizes[i]++] = u;
+        batches[i][sizes[i]++] = w;
+        if (sizes[i] == batches[i].length) {
+            this.send(batches[i], sizes, i);
+        }
+    }
+
+    private void send(final int[] batch, final int[] sizes, final int i) throws IOException {
+        if (sizes[i] == 0) {
+            return;
+        }
+        out[i].writeInt(sizes[i] / 2);
+        for (int j = 0; j < sizes[i]; j++) {
+            out[i].writeInt(batch[j]);
+        }
+        sizes[i] = 0;
+    }
+
+    // jvmOptions returns the options this JVM was started with which the workers inherit,
+    // such as the heap size, but not the agents and recordings, which would clash.
+    private static List<String> jvmOptions() {
+        final List<String> options = new ArrayList<String>();
+        for (String option: ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-agentlib") || option.startsWith("-agentpath") || option.startsWith("-javaagent")
+                    || option.startsWith("-XX:StartFlightRecording") || option.startsWith("-XX:FlightRecorderOptions")) {
+                continue;
+            }
+            options.add(option);
+        }
+        return options;
+    }
+
+    // broadcast sends `command` to all workers and returns the sum of their answers.
+    private long broadcast(final int command) throws IOException {
+        for (int i = 0; i < workers; i++) {
+            out[i].writeInt(command);
+            out[i].flush();
+        }
+        long sum = 0;
+        for (int i = 0; i < workers; i++) {
+            sum += in[i].readLong();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,395 @@
+package tarjanUF;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// DistributedWorker is one process of the distributed SCC decomposition driven by
+// `DistributedSCC`. Node `v` is owned by worker `v % workers`, which keeps the state of `v`,
+// its successors and its predecessors. Workers proceed in supersteps ordered by the
+// coordinator. In every superstep each worker sends exactly one batch of messages to every
+// other worker, so once all batches of a superstep are received no message is in flight.
+public class DistributedWorker {
+
+    // Commands sent by the coordinator. Each is answered by a single long.
+    static final int CMD_COLOR_INIT = 1;
+    static final int CMD_COLOR_STEP = 2;
+    static final int CMD_BACK_INIT = 3;
+    static final int CMD_BACK_STEP = 4;
+    static final int CMD_RESULT = 5;
+    static final int CMD_TRIM_INIT = 6;
+    static final int CMD_TRIM_STEP = 7;
+
+    // UNASSIGNED marks a node whose SCC is not known yet.
+    private static final int UNASSIGNED = -1;
+    // The messages of the trimming phase tell the owner of a node that it lost a live
+    // predecessor or a live successor.
+    private static final int LOST_PREDECESSOR = 0;
+    private static final int LOST_SUCCESSOR = 1;
+
+    // Phase is the phase a superstep belongs to:
+    // 1. trim:
+    //      Trimmed nodes tell their neighbours, which are trimmed once they have no live
+    //      predecessor or no live successor left.
+    // 2. forward:
+    //      Colors are propagated along the arcs.
+    // 3. backward:
+    //      The SCC of a root is spread to the predecessors of the same color.
+    private enum Phase {
+        trim, forward, backward;
+    };
+
+    private final int index;
+    private final int workers;
+    // Number of nodes in the whole graph and of nodes owned by this worker.
+    private int n;
+    private int local;
+    // Successors and predecessors of the owned nodes as compressed rows, indexed by `v / workers`.
+    private int[] succOffsets, succ, predOffsets, pred;
+    // color[l] is the color of the coloring phase and scc[l] the representative of the SCC
+    // of the owned node `l`, or UNASSIGNED.
+    private int[] color, scc;
+    // The number of live predecessors and successors of the owned nodes, during trimming.
+    // Self loops are not counted.
+    private int[] inDegree, outDegree;
+    // The owned nodes to be processed in the next superstep, flagged in `inFrontier`.
+    private int[] frontier;
+    private int frontierSize;
+    private boolean[] inFrontier;
+
+    // Connection to the coordinator and to the other workers.
+    private DataInputStream coordinatorIn;
+    private DataOutputStream coordinatorOut;
+    private final DataOutputStream[] peerOut;
+    private final BlockingQueue<int[]> inbox = new LinkedBlockingQueue<int[]>();
+
+    // Constructor.
+    public DistributedWorker(final int index, final int workers) {
+        this.index = index;
+        this.workers = workers;
+        this.peerOut = new DataOutputStream[workers];
+    }
+
+    // owner returns the worker owning node `v`.
+    private int owner(final int v) {
+        return v % workers;
+    }
+
+    // connect joins the coordinator at `host`:`port` and opens a connection to every other worker.
+    private void connect(final String host, final int port) throws IOException {
+        final ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress());
+        final Socket socket = new Socket(host, port);
+        coordinatorIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        coordinatorOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        coordinatorOut.writeInt(index);
+        coordinatorOut.writeInt(server.getLocalPort());
+        coordinatorOut.flush();
+
+        // The coordinator answers with the ports of all workers.
+        final int[] ports = new int[workers];
+        for (int i = 0; i < workers; i++) {
+            ports[i] = coordinatorIn.readInt();
+        }
+
+        // Outgoing connections are only written to and incoming ones only read from,
+        // each by a thread of its own so that sending a batch never waits for a receiver.
+        for (int i = 0; i < workers; i++) {
+            if (i != index) {
+                final Socket peer = new Socket(InetAddress.getLoopbackAddress(), ports[i]);
+                peer.setTcpNoDelay(true);
+                peerOut[i] = new DataOutputStream(new BufferedOutputStream(peer.getOutputStream(), 1 << 16));
+                peerOut[i].writeInt(index);
+                peerOut[i].flush();
+            }
+        }
+        for (int i = 0; i < workers - 1; i++) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(server.accept().getInputStream(), 1 << 16));
+            in.readInt();
+            final Thread reader = new Thread(() -> receive(in));
+            reader.setDaemon(true);
+            reader.start();
+        }
+        server.close();
+    }
+
+    // receive reads batches from a peer into the inbox until the connection is closed.
+    private void receive(final DataInputStream in) {
+        try {
+            while (true) {
+                final int[] batch = new int[in.readInt() * 2];
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = in.readInt();
+                }
+                inbox.add(batch);
+            }
+        } catch (IOException e) {
+            // The peer finished.
+        }
+    }
+
+    // load receives the arcs incident to owned nodes from the coordinator, which reads the
+    // edge list once. The arcs come as (source, target) pairs in batches ended by an empty
+    // one, followed by the number of nodes. They are counted into rows once all are there.
+    private void load() throws IOException {
+        int[] arcs = new int[1024];
+        int size = 0;
+        for (int count = coordinatorIn.readInt(); count > 0; count = coordinatorIn.readInt()) {
+            if (size + 2 * count > arcs.length) {
+                arcs = Arrays.copyOf(arcs, Math.max(size + 2 * count, 2 * arcs.length));
+            }
+            for (int i = 0; i < 2 * count; i++) {
+                arcs[size++] = coordinatorIn.readInt();
+            }
+        }
+        n = coordinatorIn.readInt();
+        local = (n - index + workers - 1) / workers;
+
+        final int[] succCount = new int[local];
+        final int[] predCount = new int[local];
+        for (int i = 0; i < size; i += 2) {
+            final int u = arcs[i];
+            final int w = arcs[i + 1];
+            if (owner(u) == index) {
+                succCount[u / workers]++;
+            }
+            if (owner(w) == index && u != w) {
+                predCount[w / workers]++;
+            }
+        }
+        succOffsets = offsets(succCount, local);
+        predOffsets = offsets(predCount, local);
+        succ = new int[succOffsets[local]];
+        pred = new int[predOffsets[local]];
+
+        final int[] succFill = Arrays.copyOf(succOffsets, local);
+        final int[] predFill = Arrays.copyOf(predOffsets, local);
+        for (int i = 0; i < size; i += 2) {
+            final int u = arcs[i];
+            final int w = arcs[i + 1];
+            if (owner(u) == index) {
+                succ[succFill[u / workers]++] = w;
+            }
+            if (owner(w) == index && u != w) {
+                pred[predFill[w / workers]++] = u;
+            }
+        }
+
+        color = new int[local];
+        scc = new int[local];
+        Arrays.fill(scc, UNASSIGNED);
+        frontier = new int[local];
+        inFrontier = new boolean[local];
+    }
+
+    // serve executes the commands of the coordinator until the result is requested.
+    private void serve() throws IOException, InterruptedException {
+        while (true) {
+            final int command = coordinatorIn.readInt();
+            long answer = 0;
+            switch (command) {
+                case CMD_TRIM_INIT:
+                    // Nodes without a predecessor or without a successor are SCCs on their own.
+                    inDegree = new int[local];
+                    outDegree = new int[local];
+                    frontierSize = 0;
+                    for (int l = 0; l < local; l++) {
+                        final int v = l * workers + index;
+                        for (int a = succOffsets[l]; a < succOffsets[l + 1]; a++) {
+                            if (succ[a] != v) {
+                                outDegree[l]++;
+                            }
+                        }
+                        inDegree[l] = predOffsets[l + 1] - predOffsets[l];
+                        if (inDegree[l] == 0 || outDegree[l] == 0) {
+                            scc[l] = v;
+                            push(l);
+                        }
+                    }
+                    answer = frontierSize;
+                    break;
+                case CMD_TRIM_STEP:
+                    answer = superstep(Phase.trim);
+                    break;
+                case CMD_COLOR_INIT:
+                    // Trimming is over.
+                    inDegree = null;
+                    outDegree = null;
+                    // Every live node starts with its own id as color and is to be propagated.
+                    frontierSize = 0;
+                    for (int l = 0; l < local; l++) {
+                        if (scc[l] == UNASSIGNED) {
+                            color[l] = l * workers + index;
+                            push(l);
+                        }
+                    }
+                    answer = frontierSize;
+                    break;
+                case CMD_COLOR_STEP:
+                    answer = superstep(Phase.forward);
+                    break;
+                case CMD_BACK_INIT:
+                    // Live nodes which kept their own color are roots of an SCC.
+                    frontierSize = 0;
+                    for (int l = 0; l < local; l++) {
+                        if (scc[l] == UNASSIGNED && color[l] == l * workers + index) {
+                            scc[l] = color[l];
+                            push(l);
+                        }
+                    }
+                    answer = frontierSize;
+                    break;
+                case CMD_BACK_STEP:
+                    answer = superstep(Phase.backward);
+                    break;
+                case CMD_RESULT:
+                    coordinatorOut.writeInt(local);
+                    for (int l = 0; l < local; l++) {
+                        coordinatorOut.writeInt(scc[l]);
+                    }
+                    coordinatorOut.flush();
+                    for (DataOutputStream out: peerOut) {
+                        if (out != null) {
+                            out.close();
+                        }
+                    }
+                    return;
+                default:
+                    throw new IOException("Unknown command: " + command);
+            }
+            coordinatorOut.writeLong(answer);
+            coordinatorOut.flush();
+        }
+    }
+
+    // superstep sends the messages for the current frontier, batched per destination, and
+    // applies the messages received. Forward steps propagate the maximum color along arcs,
+    // backward steps spread the SCC of a root to the predecessors of the same color and trim
+    // steps tell the neighbours of the nodes trimmed last.
+    // Returns the size of the new frontier.
+    private long superstep(final Phase phase) throws IOException, InterruptedException {
+        final int[][] batches = new int[workers][];
+        final int[] sizes = new int[workers];
+        for (int i = 0; i < workers; i++) {
+            batches[i] = new int[16];
+        }
+        for (int i = 0; i < frontierSize; i++) {
+            final int l = frontier[i];
+            inFrontier[l] = false;
+            if (phase == Phase.trim) {
+                final int v = l * workers + index;
+                for (int a = succOffsets[l]; a < succOffsets[l + 1]; a++) {
+                    if (succ[a] != v) {
+                        message(batches, sizes, succ[a], LOST_PREDECESSOR);
+                    }
+                }
+                for (int a = predOffsets[l]; a < predOffsets[l + 1]; a++) {
+                    message(batches, sizes, pred[a], LOST_SUCCESSOR);
+                }
+            } else {
+                final int[] offsets = (phase == Phase.forward) ? succOffsets : predOffsets;
+                final int[] arcs = (phase == Phase.forward) ? succ : pred;
+                for (int a = offsets[l]; a < offsets[l + 1]; a++) {
+                    message(batches, sizes, arcs[a], color[l]);
+                }
+            }
+        }
+
+        for (int i = 0; i < workers; i++) {
+            if (i != index) {
+                peerOut[i].writeInt(sizes[i] / 2);
+                for (int j = 0; j < sizes[i]; j++) {
+                    peerOut[i].writeInt(batches[i][j]);
+                }
+                peerOut[i].flush();
+            }
+        }
+
+        frontierSize = 0;
+        apply(batches[index], sizes[index], phase);
+        for (int i = 0; i < workers - 1; i++) {
+            final int[] batch = inbox.take();
+            apply(batch, batch.length, phase);
+        }
+        return frontierSize;
+    }
+
+    // message appends the message (v, value) to the batch of the owner of `v`.
+    private void message(final int[][] batches, final int[] sizes, final int v, final int value) {
+        final int dest = owner(v);
+        if (sizes[dest] + 2 > batches[dest].length) {
+            batches[dest] = Arrays.copyOf(batches[dest], batches[dest].length * 2);
+        }
+        batches[dest][sizes[dest]++] = v;
+        batches[dest][sizes[dest]++] = value;
+    }
+
+    // apply processes the (node, value) messages of a batch.
+    private void apply(final int[] batch, final int size, final Phase phase) {
+        for (int i = 0; i < size; i += 2) {
+            final int v = batch[i];
+            final int l = v / workers;
+            final int c = batch[i + 1];
+            if (scc[l] != UNASSIGNED) {
+                continue;
+            }
+            if (phase == Phase.trim) {
+                if (c == LOST_PREDECESSOR) {
+                    inDegree[l]--;
+                } else {
+                    outDegree[l]--;
+                }
+                if (inDegree[l] == 0 || outDegree[l] == 0) {
+                    scc[l] = v;
+                    push(l);
+                }
+            } else if (phase == Phase.forward && c > color[l]) {
+                color[l] = c;
+                push(l);
+            } else if (phase == Phase.backward && c == color[l]) {
+                scc[l] = c;
+                push(l);
+            }
+        }
+    }
+
+    private void push(final int l) {
+        if (!inFrontier[l]) {
+            inFrontier[l] = true;
+            frontier[frontierSize++] = l;
+        }
+    }
+
+    private static int[] offsets(final int[] counts, final int local) {
+        final int[] offsets = new int[local + 1];
+        for (int l = 0; l < local; l++) {
+            offsets[l + 1] = offsets[l] + counts[l];
+        }
+        return offsets;
+    }
+
+    public static void main(String[] args) {
+        // The worker requires 4 parameters in its input.
+        // 1. Host and 2. port of the coordinator.
+        // 3. Index of this worker and 4. number of workers.
+        // The arcs of its nodes are sent by the coordinator.
+        assert args.length == 4;
+        final DistributedWorker worker = new DistributedWorker(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        try {
+            worker.connect(args[0], Integer.parseInt(args[1]));
+            worker.load();
+            worker.serve();
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+}
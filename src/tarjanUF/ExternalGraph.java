@@ -0,0 +1,354 @@
+package tarjanUF;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ExternalGraph is a graph whose arcs stay on disk, for graphs whose arcs do not fit into
+// memory while a union find node per node does. Only an offset per node is kept in memory.
+// The arcs are read on demand in pages through a cache of a bounded number of pages which is
+// shared by all workers and evicts pages by the clock algorithm.
+//
+// The file is made from an edge list by `convert`. It holds MAGIC, the number of nodes `n`
+// and of arcs `m`, the out-degree of every node [0..n - 1] and the successors of the nodes in
+// the order of the nodes, all as big endian ints but `m`, which is a long.
+public class ExternalGraph implements DirectedGraph, Closeable {
+
+    private static final int MAGIC = 0x53434345;
+    // The bytes before the degrees.
+    private static final int HEADER = 16;
+    // A page holds 2^PAGE_BITS successors.
+    private static final int PAGE_BITS = 14;
+    private static final int PAGE_INTS = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_INTS - 1;
+
+    // Page is a cached page of successors.
+    private static class Page {
+        final int number;
+        final int[] arcs;
+        // Set on every access, cleared by the clock hand passing by.
+        volatile boolean referenced = true;
+
+        // Constructor.
+        Page(final int number, final int[] arcs) {
+            this.number = number;
+            this.arcs = arcs;
+        }
+    }
+
+    private final FileChannel channel;
+    // The successors of node `i` are the successors offsets[i] to offsets[i + 1] - 1.
+    private final long[] offsets;
+    // The position of the first successor in the file.
+    private final long base;
+    // The cached pages by their number, null for pages not in the cache.
+    private final AtomicReferenceArray<Page> pages;
+    // The numbers of the cached pages, the clock runs over them. Guarded by `this`.
+    private final int[] clock;
+    private int cached;
+    private int hand;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Constructor.
+    // Opens the graph in `filename`, caching at most `cacheBytes` bytes of arcs.
+    public ExternalGraph(final String filename, final long cacheBytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(filename + " is not an external graph, convert the edge list first.");
+            }
+            final int n = in.readInt();
+            final long m = in.readLong();
+            this.offsets = new long[n + 1];
+            for (int v = 0; v < n; v++) {
+                this.offsets[v + 1] = this.offsets[v] + in.readInt();
+            }
+            if (this.offsets[n] != m) {
+                throw new IOException(filename + ": the degrees do not add up to " + m + " arcs.");
+            }
+            this.base = HEADER + 4L * n;
+        }
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        final int pageCount = (int) ((this.offsets[this.offsets.length - 1] + PAGE_MASK) >>> PAGE_BITS);
+        this.pages = new AtomicReferenceArray<Page>(pageCount);
+        this.clock = new int[(int) Math.max(1, Math.min(pageCount, cacheBytes / (4L * PAGE_INTS)))];
+    }
+
+    @Override
+    public Integer N() {
+        return this.offsets.length - 1;
+    }
+
+    @Override
+    public int outDegree(final int id) {
+        return (int) (this.offsets[id + 1] - this.offsets[id]);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt arcs(final int id, final int start) {
+        final long begin = this.offsets[id];
+        final int degree = this.outDegree(id);
+        final int first = (degree == 0) ? 0 : start % degree;
+        // The pages are looked up for every successor, so that iterators left on the stacks
+        // of the workers do not keep pages evicted from the cache.
+        return new PrimitiveIterator.OfInt() {
+            private int returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.returned < degree;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int index = first + this.returned++;
+                if (index >= degree) {
+                    index -= degree;
+                }
+                return arc(begin + index);
+            }
+        };
+    }
+
+    // get returns a copy of the node `id` with its arcs read.
+    @Override
+    public GraphNode get(final int id) {
+        final GraphNode node = new GraphNode(id);
+        final PrimitiveIterator.OfInt arcs = this.arcs(id, 0);
+        while (arcs.hasNext()) {
+            node.getArcs().add(arcs.nextInt());
+        }
+        return node;
+    }
+
+    // node returns a node without arcs, so that no page is read to collect the SCCs.
+    @Override
+    public GraphNode node(final int id) {
+        return new GraphNode(id);
+    }
+
+    // arc returns the successor at `index` of all successors.
+    private int arc(final long index) {
+        final int number = (int) (index >>> PAGE_BITS);
+        Page page = this.pages.get(number);
+        if (page != null) {
+            this.hits.increment();
+            // Only write the flag when needed, it is read by all workers.
+            if (!page.referenced) {
+                page.referenced = true;
+            }
+        } else {
+            this.misses.increment();
+            page = this.load(number);
+        }
+        return page.arcs[(int) (index & PAGE_MASK)];
+    }
+
+    // load reads page `number` and puts it into the cache. The page is read without holding
+    // the lock, so several workers may read the same page at once, but only one copy is kept.
+    private Page load(final int number) {
+        final long from = (long) number << PAGE_BITS;
+        final int length = (int) Math.min(PAGE_INTS, this.offsets[this.offsets.length - 1] - from);
+        final ByteBuffer buffer = ByteBuffer.allocate(4 * length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (this.channel.read(buffer, this.base + 4 * from + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of the external graph.");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        final int[] arcs = new int[length];
+        buffer.asIntBuffer().get(arcs);
+
+        synchronized (this) {
+            final Page present = this.pages.get(number);
+            if (present != null) {
+                return present;
+            }
+            final Page page = new Page(number, arcs);
+            if (this.cached < this.clock.length) {
+                this.clock[this.cached++] = number;
+            } else {
+                // Evict the first page not referenced since the hand passed it last.
+                while (true) {
+                    final Page victim = this.pages.get(this.clock[this.hand]);
+                    if (victim.referenced) {
+                        victim.referenced = false;
+                        this.hand = (this.hand + 1) % this.clock.length;
+                        continue;
+                    }
+                    this.pages.set(victim.number, null);
+                    this.clock[this.hand] = number;
+                    this.hand = (this.hand + 1) % this.clock.length;
+                    break;
+                }
+            }
+            this.pages.set(number, page);
+            return page;
+        }
+    }
+
+    // cacheStatistics returns the hits and misses of the page cache.
+    public String cacheStatistics() {
+        return this.hits.sum() + " hits, " + this.misses.sum() + " misses in " + this.clock.length + " pages of " + (4 * PAGE_INTS) + " bytes";
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    // EdgeReader reads the numbers of an edge list. Also used by `DistributedSCC`.
+    static class EdgeReader {
+        private final InputStream in;
+        private final String filename;
+
+        // Constructor.
+        EdgeReader(final String filename) throws IOException {
+            this.in = new BufferedInputStream(new FileInputStream(filename), 1 << 16);
+            this.filename = filename;
+        }
+
+        // next returns the next number, -1 at the end of the input.
+        int next() throws IOException {
+            int c = this.in.read();
+            while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                c = this.in.read();
+            }
+            if (c == -1) {
+                return -1;
+            }
+            if (c < '0' || c > '9') {
+                throw new IOException(this.filename + ": unexpected character '" + (char) c + "'.");
+            }
+            int value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                c = this.in.read();
+            }
+            return value;
+        }
+
+        void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    // convert writes the edge list in `edges` as an external graph to `filename`. The nodes
+    // are [0..n - 1] for the largest node n - 1 of the list. The memory used is proportional
+    // to the number of nodes plus `bufferBytes`: the edge list is read once to count the
+    // degrees and then once for every range of nodes whose successors fit into the buffer.
+    public static void convert(final String edges, final String filename, final long bufferBytes) throws IOException {
+        int[] degrees = new int[1024];
+        int n = 0;
+        EdgeReader reader = new EdgeReader(edges);
+        try {
+            for (int from = reader.next(); from != -1; from = reader.next()) {
+                final int to = reader.next();
+                if (to == -1) {
+                    throw new IOException(edges + ": an edge lacks its target.");
+                }
+                n = Math.max(n, Math.max(from, to) + 1);
+                if (n > degrees.length) {
+                    degrees = Arrays.copyOf(degrees, Math.max(n, 2 * degrees.length));
+                }
+                degrees[from]++;
+            }
+        } finally {
+            reader.close();
+        }
+        final long[] offsets = new long[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + degrees[v];
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeLong(offsets[n]);
+            for (int v = 0; v < n; v++) {
+                out.writeInt(degrees[v]);
+            }
+            // Reuse the degrees as the number of successors placed per node.
+            Arrays.fill(degrees, 0);
+            final int capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, bufferBytes / 4));
+            int[] buffer = new int[0];
+            for (int low = 0; low < n; ) {
+                // The nodes [low..high - 1] whose successors fit, at least one node.
+                int high = low + 1;
+                while (high < n && offsets[high + 1] - offsets[low] <= capacity) {
+                    high++;
+                }
+                final int size = (int) (offsets[high] - offsets[low]);
+                if (buffer.length < size) {
+                    buffer = new int[Math.max(size, Math.min(capacity, 2 * buffer.length))];
+                }
+                reader = new EdgeReader(edges);
+                try {
+                    for (int from = reader.next(); from != -1; from = reader.next()) {
+                        final int to = reader.next();
+                        if (from >= low && from < high) {
+                            buffer[(int) (offsets[from] - offsets[low]) + degrees[from]++] = to;
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+                for (int i = 0; i < size; i++) {
+                    out.writeInt(buffer[i]);
+                }
+                low = high;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        // The tool requires 2 parameters in its input.
+        // 1. The edge list to be converted.
+        // 2. The file the external graph is written to.
+        // Any further parameters are options:
+        //      --buffer <MB>: The memory for the arcs of a pass over the edge list, 256 by default.
+        assert args.length >= 2;
+        long buffer = 256;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--buffer":
+                    buffer = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        final long start = System.nanoTime();
+        try {
+            convert(args[0], args[1], buffer << 20);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+        System.err.println("Runtime for conversion: " + (System.nanoTime() - start));
+    }
+
+}
@@ -0,0 +1,106 @@
+package tarjanUF;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+// FilteredGraph is the subgraph of a graph restricted to the nodes and arcs accepted by
+// predicates, without copying anything. The arcs of a node are filtered while they are
+// iterated, so many restricted decompositions can share one loaded graph. A node which is not
+// accepted keeps its id, but has no arcs and no arc leads to it.
+public class FilteredGraph implements DirectedGraph {
+
+    // ArcFilter decides whether the arc `from` -> `to` belongs to the subgraph.
+    public interface ArcFilter {
+        boolean test(int from, int to);
+    }
+
+    private final DirectedGraph graph;
+    // Null accepts all nodes or arcs.
+    private final IntPredicate nodes;
+    private final ArcFilter arcs;
+
+    // Constructor.
+    public FilteredGraph(final DirectedGraph graph, final IntPredicate nodes, final ArcFilter arcs) {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.arcs = arcs;
+    }
+
+    // contains checks if `id` is a node of the subgraph.
+    public boolean contains(final int id) {
+        return this.nodes == null || this.nodes.test(id);
+    }
+
+    @Override
+    public Integer N() {
+        return this.graph.N();
+    }
+
+    // outDegree returns the number of arcs of `id` in the subgraph. It has to filter
+    // all arcs of `id`.
+    @Override
+    public int outDegree(final int id) {
+        int degree = 0;
+        for (PrimitiveIterator.OfInt it = this.arcs(id, 0); it.hasNext(); it.nextInt()) {
+            degree++;
+        }
+        return degree;
+    }
+
+    // arcs returns an iterator over the successors of `id` in the subgraph, in the order of
+    // the arcs of the underlying graph starting at index `start`.
+    @Override
+    public PrimitiveIterator.OfInt arcs(final int id, final int start) {
+        if (!this.contains(id)) {
+            return IntStream.empty().iterator();
+        }
+        final int degree = this.graph.outDegree(id);
+        final PrimitiveIterator.OfInt all = this.graph.arcs(id, start);
+        return new PrimitiveIterator.OfInt() {
+            // The arcs of the underlying graph not looked at yet.
+            private int left = degree;
+            // The next successor in the subgraph, -1 if it is not looked for yet.
+            private int next = -1;
+
+            @Override
+            public boolean hasNext() {
+                while (this.next == -1 && this.left > 0) {
+                    this.left--;
+                    final int w = all.nextInt();
+                    if (contains(w) && (arcs == null || arcs.test(id, w))) {
+                        this.next = w;
+                    }
+                }
+                return this.next != -1;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int w = this.next;
+                this.next = -1;
+                return w;
+            }
+        };
+    }
+
+    @Override
+    public GraphNode get(final int id) {
+        return this.graph.get(id);
+    }
+
+    @Override
+    public GraphNode node(final int id) {
+        return this.graph.node(id);
+    }
+
+    @Override
+    public void release(final int id) {
+        this.graph.release(id);
+    }
+
+}
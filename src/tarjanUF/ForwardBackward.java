@@ -0,0 +1,220 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// ForwardBackward is an offline SCC engine for fully materialized graphs. It follows the
+// Multistep scheme: trim trivial SCCs, carve out the giant SCC with a single parallel
+// forward-backward search from a well connected pivot, and decompose the rest by coloring.
+// Unlike `SCCWorker` it does not depend on the DFS frontier, so it keeps scaling on graphs
+// with one huge SCC. The result is written into the same union find structure.
+public class ForwardBackward {
+
+    // UNASSIGNED marks a node whose SCC is not known yet.
+    private static final int UNASSIGNED = -1;
+
+    private final DirectedGraph graph;
+    private final ReverseIndex reverse;
+    private final int numCores;
+    // scc[v] is the representative of the SCC of `v`, or UNASSIGNED.
+    private final AtomicIntegerArray scc;
+    // color is used as the forward reachability mark and as the color of the coloring phase.
+    private final AtomicIntegerArray color;
+
+    // Constructor.
+    public ForwardBackward(final DirectedGraph graph, final ReverseIndex reverse, final int numCores) {
+        final int n = graph.N();
+        this.graph = graph;
+        this.reverse = reverse;
+        this.numCores = numCores;
+        this.scc = new AtomicIntegerArray(n);
+        this.color = new AtomicIntegerArray(n);
+    }
+
+    // run decomposes the whole graph and records every SCC in `unionfind`.
+    public void run(final UF unionfind) {
+        final int n = graph.N();
+        final Parallel parallel = new Parallel(numCores);
+
+        // Step 1: Trim. Trimmed nodes are marked dead singletons in `unionfind` directly.
+        final Trimmer trimmer = new Trimmer(graph, reverse, unionfind);
+        System.err.println("Trimmed nodes: " + trimmer.trim(numCores));
+        parallel.run(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                scc.set(v, trimmer.isTrimmed(v) ? v : UNASSIGNED);
+            }
+        });
+        int[] live = remaining(parallel, range(n));
+
+        // Step 2: A single forward-backward search from the node most likely to be part of
+        // the giant SCC, i.e. the one maximizing the product of its degrees.
+        if (live.length > 0) {
+            int pivot = live[0];
+            long best = -1;
+            for (int v: live) {
+                long degrees = (long) reverse.inDegree(v) * graph.outDegree(v);
+                if (degrees > best) {
+                    best = degrees;
+                    pivot = v;
+                }
+            }
+            forwardBackward(parallel, live, pivot);
+            live = remaining(parallel, live);
+        }
+
+        // Step 3: Coloring. Every live node starts with its own id as color and the maximum
+        // color is propagated forward. A node which kept its own color is the root of an SCC
+        // consisting of the nodes of that color which reach it backwards.
+        int rounds = 0;
+        while (live.length > 0) {
+            color(parallel, live);
+            collect(parallel, live);
+            live = remaining(parallel, live);
+            rounds++;
+        }
+        System.err.println("Coloring rounds: " + rounds);
+
+        // Record the result in the union find structure.
+        parallel.run(n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                if (!trimmer.isTrimmed(v)) {
+                    unionfind.assignSCC(v + 1, scc.get(v) + 1);
+                }
+            }
+        });
+        parallel.shutdown();
+    }
+
+    // forwardBackward computes the SCC of `pivot` among the `live` nodes as the
+    // intersection of its forward and backward closure.
+    private void forwardBackward(final Parallel parallel, final int[] live, final int pivot) {
+        final int forward = 1, both = 2;
+        parallel.run(live.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                color.set(live[i], 0);
+            }
+        });
+
+        // Parallel level synchronous forward search over unassigned nodes.
+        color.set(pivot, forward);
+        int[] frontier = {pivot};
+        while (frontier.length > 0) {
+            final int[] current = frontier;
+            frontier = parallel.expand(current.length, (i, next) -> {
+                final PrimitiveIterator.OfInt arcs = graph.arcs(current[i], 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (scc.get(w) == UNASSIGNED && color.compareAndSet(w, 0, forward)) {
+                        next.add(w);
+                    }
+                }
+            });
+        }
+
+        // Backward search restricted to the forward closure.
+        color.set(pivot, both);
+        scc.set(pivot, pivot);
+        frontier = new int[] {pivot};
+        while (frontier.length > 0) {
+            final int[] current = frontier;
+            frontier = parallel.expand(current.length, (i, next) -> {
+                final int v = current[i];
+                for (int j = 0; j < reverse.inDegree(v); j++) {
+                    int u = reverse.predecessor(v, j);
+                    if (color.compareAndSet(u, forward, both)) {
+                        scc.set(u, pivot);
+                        next.add(u);
+                    }
+                }
+            });
+        }
+    }
+
+    // color propagates the maximum color along the arcs between `live` nodes until stable.
+    private void color(final Parallel parallel, final int[] live) {
+        parallel.run(live.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                color.set(live[i], live[i]);
+            }
+        });
+
+        int[] frontier = live;
+        while (frontier.length > 0) {
+            final int[] current = frontier;
+            frontier = parallel.expand(current.length, (i, next) -> {
+                final int v = current[i];
+                final int c = color.get(v);
+                final PrimitiveIterator.OfInt arcs = graph.arcs(v, 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (scc.get(w) != UNASSIGNED) {
+                        continue;
+                    }
+                    // Atomically raise the color of `w` to at least `c`.
+                    int old = color.get(w);
+                    while (old < c && !color.compareAndSet(w, old, c)) {
+                        old = color.get(w);
+                    }
+                    if (old < c) {
+                        next.add(w);
+                    }
+                }
+            });
+        }
+    }
+
+    // collect assigns the SCC of every root of the coloring, i.e. every live node which kept
+    // its own color. The backward searches of different roots are disjoint as they are
+    // restricted to distinct colors, so they run in parallel with each other.
+    private void collect(final Parallel parallel, final int[] live) {
+        parallel.run(live.length, (from, to) -> {
+            final List<Integer> queue = new ArrayList<Integer>();
+            for (int i = from; i < to; i++) {
+                final int root = live[i];
+                if (color.get(root) != root) {
+                    continue;
+                }
+                scc.set(root, root);
+                queue.clear();
+                queue.add(root);
+                for (int head = 0; head < queue.size(); head++) {
+                    final int v = queue.get(head);
+                    for (int j = 0; j < reverse.inDegree(v); j++) {
+                        int u = reverse.predecessor(v, j);
+                        if (color.get(u) == root && scc.get(u) == UNASSIGNED) {
+                            scc.set(u, root);
+                            queue.add(u);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // remaining returns the nodes of `nodes` which are not assigned to an SCC yet.
+    private int[] remaining(final Parallel parallel, final int[] nodes) {
+        final ConcurrentLinkedQueue<List<Integer>> parts = new ConcurrentLinkedQueue<List<Integer>>();
+        parallel.run(nodes.length, (from, to) -> {
+            final List<Integer> part = new ArrayList<Integer>();
+            for (int i = from; i < to; i++) {
+                if (scc.get(nodes[i]) == UNASSIGNED) {
+                    part.add(nodes[i]);
+                }
+            }
+            parts.add(part);
+        });
+        return Parallel.concat(parts);
+    }
+
+    private static int[] range(final int n) {
+        final int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = i;
+        }
+        return result;
+    }
+
+}
@@ -1,10 +1,12 @@
 package tarjanUF;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
 
-public class Graph {
+public class Graph implements DirectedGraph {
 
     // A HashMap is required to access the GraphNode object given the unique id.
     // This Map is precisely the set of nodes in the graph.
@@ -30,6 +32,7 @@ public class Graph {
     }
 
     // get returns a reference to node with node.id == id.
+    @Override
     public GraphNode get(final int id) {
         return this.nodePtrTable.get(id);
     }
@@ -54,8 +57,48 @@ public class Graph {
     }
 
     // N returns the number of nodes currently present in the graph.
+    @Override
     public Integer N() {
         return nodePtrTable.size();
     }
 
+    // outDegree returns the number of outgoing arcs of `id`.
+    @Override
+    public int outDegree(final int id) {
+        final List<Integer> arcs = this.nodePtrTable.get(id).getArcs();
+        return (arcs == null) ? 0 : arcs.size();
+    }
+
+    // arcs returns an iterator over the successors of `id` starting at index `start`.
+    @Override
+    public PrimitiveIterator.OfInt arcs(final int id, final int start) {
+        final List<Integer> arcs = this.nodePtrTable.get(id).getArcs();
+        // Released arcs are gone.
+        final int size = (arcs == null) ? 0 : arcs.size();
+        final int first = (size == 0) ? 0 : start % size;
+        return new PrimitiveIterator.OfInt() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public int nextInt() {
+                int index = first + i++;
+                if (index >= size) {
+                    index -= size;
+                }
+                return arcs.get(index);
+            }
+        };
+    }
+
+    // release drops the adjacency list of `id`.
+    @Override
+    public void release(final int id) {
+        this.nodePtrTable.get(id).setArcs(null);
+    }
+
 }
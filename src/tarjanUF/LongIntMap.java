@@ -0,0 +1,92 @@
+package tarjanUF;
+
+import java.util.Arrays;
+
+// LongIntMap maps long keys to non-negative int values by open addressing with linear probing
+// on primitive arrays, so that mapping millions of state fingerprints to node ids neither
+// boxes the keys nor allocates an entry per key.
+public class LongIntMap {
+
+    private static final int ABSENT = -1;
+
+    private long[] keys;
+    // The value of the key in the same slot, ABSENT for free slots.
+    private int[] values;
+    private int size;
+    // The table is grown once it is more than half full.
+    private int threshold;
+
+    // Constructor.
+    // Holds `expected` keys without growing.
+    public LongIntMap(final int expected) {
+        int capacity = 16;
+        while (capacity < 2L * expected && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        this.allocate(capacity);
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.values, ABSENT);
+        this.threshold = capacity / 2;
+    }
+
+    // size returns the number of keys.
+    public int size() {
+        return this.size;
+    }
+
+    // get returns the value of `key`, -1 if it has none.
+    public int get(final long key) {
+        final int mask = this.keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            if (this.values[slot] == ABSENT || this.keys[slot] == key) {
+                return this.values[slot];
+            }
+        }
+    }
+
+    // putIfAbsent maps `key` to `value` unless it has a value. Returns the value of `key`.
+    public int putIfAbsent(final long key, final int value) {
+        final int mask = this.keys.length - 1;
+        int slot = slot(key, mask);
+        while (this.values[slot] != ABSENT) {
+            if (this.keys[slot] == key) {
+                return this.values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if (++this.size > this.threshold) {
+            this.grow();
+        }
+        return value;
+    }
+
+    private void grow() {
+        final long[] keys = this.keys;
+        final int[] values = this.values;
+        this.allocate(2 * keys.length);
+        final int mask = this.keys.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != ABSENT) {
+                int slot = slot(keys[i], mask);
+                while (this.values[slot] != ABSENT) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = keys[i];
+                this.values[slot] = values[i];
+            }
+        }
+    }
+
+    // slot spreads the bits of `key`, fingerprints may differ in their high bits only.
+    private static int slot(final long key, final int mask) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+}
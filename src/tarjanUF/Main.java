@@ -1,10 +1,18 @@
 package tarjanUF;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,8 +21,10 @@ public class Main {
 
     // readFile reads a directed graph from the file `filename` which contains an edge in each line.
     // The graph is stored as an adjacency list.
-    private static void readFile(Graph graph, String filename) throws IOException {
+    public static void readFile(Graph graph, String filename) throws IOException {
         final long start = System.nanoTime();
+        final SCCEvents.InputLoad event = new SCCEvents.InputLoad();
+        event.begin();
 
         final FileInputStream in = new FileInputStream(filename);
         try (BufferedReader br = new BufferedReader(new InputStreamReader(in))) {
@@ -40,6 +50,9 @@ public class Main {
             }
         }
 
+        event.graph = filename;
+        event.nodes = graph.N();
+        event.commit();
         final long duration = System.nanoTime() - start;
         System.err.println("Runtime for input: " + duration);
     }
@@ -72,34 +85,307 @@ public class Main {
         System.err.println("Runtime for output: " + duration);
     }
 
+    // writeSCCs writes the SCCs found to `filename` in the binary format of `SCCCompare`:
+    // the representative of every node indexed by the node.
+    public static void writeSCCs(Map<Integer, Set<GraphNode>> sccs, String filename) throws IOException {
+        final long start = System.nanoTime();
+
+        int n = 0;
+        for (Set<GraphNode> sgn: sccs.values()) {
+            for (GraphNode gn: sgn) {
+                n = Math.max(n, gn.getId() + 1);
+            }
+        }
+        final int[] rep = new int[n];
+        Arrays.fill(rep, -1);
+        for (Map.Entry<Integer, Set<GraphNode>> scc: sccs.entrySet()) {
+            for (GraphNode gn: scc.getValue()) {
+                rep[gn.getId()] = scc.getKey();
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(SCCCompare.BINARY_MAGIC);
+            out.writeInt(n);
+            for (int r: rep) {
+                out.writeInt(r);
+            }
+        }
+
+        final long duration = System.nanoTime() - start;
+        System.err.println("Runtime for output: " + duration);
+    }
+
+    // collectSCCs groups the nodes by the representative of their SCC, `scc[v]` being the
+    // representative of node `v`.
+    public static Map<Integer, Set<GraphNode>> collectSCCs(int[] scc) {
+        final Map<Integer, Set<GraphNode>> result = new HashMap<Integer, Set<GraphNode>>();
+        for (int v = 0; v < scc.length; v++) {
+            if (!result.containsKey(scc[v])) {
+                result.put(scc[v], new HashSet<GraphNode>());
+            }
+            result.get(scc[v]).add(new GraphNode(v));
+        }
+        return result;
+    }
+
     public static void main(String[] args) {
         // The program requires 3 parameters in its input.
         // 1. The graph to be processed.
         // 2. The set of intital nodes from which entire graph can be discoverd.
         // 3. Number of threads on which algorithm needs to run. #threads = -1 implies maximum available threads.
-        assert args.length == 3;
+        // Any further parameters are options:
+        //      --trim: Remove trivial SCCs in a parallel pre-pass before the search.
+        //      --engine <onTheFly|forwardBackward|sequential>: The algorithm used to find the SCCs.
+        //      --sequential-threshold <n>: Use the sequential engine instead of onTheFly for graphs
+        //          with less than n nodes or a single thread. A negative n never does.
+        //      --reorder <bfs|rcm>: Renumber the nodes in the given order before the search.
+        //      --compress: Store the arcs gap encoded in byte arrays during the search.
+        //      --distributed <k>: Decompose the graph with k worker processes, each holding a part
+        //          of the graph. The initial nodes and the number of threads are not used.
+        //      --checkpoint <file>: Periodically save the state of the onTheFly search to file.
+        //      --checkpoint-interval <seconds>: Time between two checkpoints, 600 by default.
+        //      --checkpoint-mmap: Write and read checkpoints through memory mapped buffers.
+        //      --resume: Continue the search from the checkpoint instead of starting anew.
+        //      --adaptive: Adapt the number of onTheFly workers exploring at the same time to the
+        //          contention measured, using at most #threads.
+        //      --spin <spin|yield|backoff|park> [<n>]: How workers wait for locks held by others,
+        //          yielding or parking after n spins (100 by default).
+        //      --batch <n>: Resolve the roots of n successors at once in the onTheFly workers,
+        //          1 (none) by default.
+        //      --reclaim: Free the data of the nodes of dead SCCs during the onTheFly search.
+        //      --output-binary <file>: Write the SCCs to file in the binary format of SCCCompare
+        //          instead of printing them.
+        //      --summary: Print the number of SCCs, their size histogram, the largest SCC and
+        //          the bottom SCCs instead of the SCCs.
+        //      --external <MB>: Read the graph from a file made by ExternalGraph, keeping at most
+        //          MB megabytes of its arcs in memory.
+        //      --input-format <dot|aut>: Import the graph from a state graph dump of TLC or LTSmin.
+        //          Its initial states are used if the initial nodes are given as -.
+        //      --link <index|random>: How the union find roots are linked, by index by default.
+        //      --stream: Print every SCC as soon as it is found, while the search is running.
+        assert args.length >= 3;
+        final ConcurrentFastSCC algorithm = new ConcurrentFastSCC();
+        boolean compress = false;
+        boolean reorder = false;
+        int processes = 0;
+        String checkpoint = null;
+        double checkpointInterval = 600;
+        boolean checkpointMapped = false;
+        boolean resume = false;
+        String binaryOutput = null;
+        boolean summary = false;
+        boolean reclaim = false;
+        boolean stream = false;
+        long external = -1;
+        StateGraphReader.Format inputFormat = null;
+        UF.LinkPolicy linkPolicy = UF.LinkPolicy.index;
+        SpinPolicy spinPolicy = new SpinPolicy();
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--trim":
+                    algorithm.setTrim(true);
+                    break;
+                case "--engine":
+                    algorithm.setEngine(ConcurrentFastSCC.Engine.valueOf(args[++i]));
+                    break;
+                case "--sequential-threshold":
+                    algorithm.setSequentialThreshold(Integer.parseInt(args[++i]));
+                    break;
+                case "--reorder":
+                    algorithm.setReordering(Reordering.Order.valueOf(args[++i]));
+                    reorder = true;
+                    break;
+                case "--compress":
+                    compress = true;
+                    break;
+                case "--distributed":
+                    processes = Integer.parseInt(args[++i]);
+                    break;
+                case "--checkpoint":
+                    checkpoint = args[++i];
+                    break;
+                case "--checkpoint-interval":
+                    checkpointInterval = Double.parseDouble(args[++i]);
+                    break;
+                case "--checkpoint-mmap":
+                    checkpointMapped = true;
+                    break;
+                case "--resume":
+                    resume = true;
+                    break;
+                case "--adaptive":
+                    algorithm.setAdaptive(true);
+                    break;
+                case "--spin":
+                    final SpinPolicy.Kind kind = SpinPolicy.Kind.valueOf(args[++i]);
+                    int spins = 100;
+                    if (i + 1 < args.length && args[i + 1].matches("\\d+")) {
+                        spins = Integer.parseInt(args[++i]);
+                    }
+                    spinPolicy = new SpinPolicy(kind, spins);
+                    break;
+                case "--batch":
+                    algorithm.setBatch(Integer.parseInt(args[++i]));
+                    break;
+                case "--reclaim":
+                    algorithm.setReclaim(true);
+                    reclaim = true;
+                    break;
+                case "--output-binary":
+                    binaryOutput = args[++i];
+                    break;
+                case "--summary":
+                    summary = true;
+                    break;
+                case "--external":
+                    external = Long.parseLong(args[++i]);
+                    break;
+                case "--input-format":
+                    inputFormat = StateGraphReader.Format.valueOf(args[++i]);
+                    break;
+                case "--link":
+                    linkPolicy = UF.LinkPolicy.valueOf(args[++i]);
+                    break;
+                case "--stream":
+                    stream = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (checkpoint != null) {
+            algorithm.setCheckpointer(new Checkpointer(checkpoint, (long) (checkpointInterval * 1000), checkpointMapped), resume);
+        } else if (resume) {
+            throw new IllegalArgumentException("--resume requires --checkpoint <file>");
+        }
+        if (summary && (reclaim || processes > 0)) {
+            // The bottom SCCs are told by the arcs of the graph.
+            throw new IllegalArgumentException("--summary requires the whole graph in memory and cannot be used with --reclaim or --distributed");
+        }
+        if (stream && (summary || binaryOutput != null || processes > 0)) {
+            throw new IllegalArgumentException("--stream prints the SCCs and cannot be used with --summary, --output-binary or --distributed");
+        }
+        if (external >= 0 && (compress || processes > 0)) {
+            // Both would hold all arcs in memory.
+            throw new IllegalArgumentException("--external cannot be used with --compress or --distributed");
+        }
+        if (reorder && compress) {
+            // The renumbered copy of the graph would hold all arcs uncompressed.
+            throw new IllegalArgumentException("--reorder cannot be used with --compress");
+        }
+        if (inputFormat != null && (external >= 0 || processes > 0)) {
+            throw new IllegalArgumentException("--input-format cannot be used with --external or --distributed");
+        }
         System.err.println("Processing graph: " + args[0] + " starting with initial nodes from " + args[2] + " with " + args[1] + " threads.");
         System.err.println("Runtimes are in nanoseconds.");
         final long start = System.nanoTime();
 
+        if (processes > 0) {
+            try {
+                final Map<Integer, Set<GraphNode>> sccs = collectSCCs(new DistributedSCC(processes).run(args[0]));
+                if (binaryOutput != null) {
+                    writeSCCs(sccs, binaryOutput);
+                } else {
+                    printSCCs(sccs);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            System.err.println("Total runtime: " + (System.nanoTime() - start));
+            return;
+        }
+
         // Read inputs from file.
-        final Graph graph = new Graph(args[0]);
+        Graph loaded = null;
+        ExternalGraph externalGraph = null;
         final List<Integer> initNodes = new ArrayList<Integer>();
         try {
-            readFile(graph, args[0]);
-            readInits(initNodes, args[2]);
+            if (external >= 0) {
+                // Only the degrees are read, the arcs stay on disk.
+                externalGraph = new ExternalGraph(args[0], external << 20);
+            } else if (inputFormat != null) {
+                final StateGraphReader reader = new StateGraphReader(inputFormat);
+                loaded = reader.readGraph(args[0]);
+                if (args[2].equals("-")) {
+                    initNodes.addAll(reader.initNodes());
+                }
+            } else {
+                loaded = new Graph(args[0]);
+                readFile(loaded, args[0]);
+            }
+            if (inputFormat == null || !args[2].equals("-")) {
+                readInits(initNodes, args[2]);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
 
         // Get the number of threads on which we should run the algorithm.
         UFNode.workerCount = ConcurrentFastSCC.requiredProcessors(Integer.parseInt(args[1]));
+        if (resume) {
+            // The resumed workers keep their ids, so at least as many are needed.
+            try {
+                UFNode.workerCount = Math.max(UFNode.workerCount, Checkpointer.workerCount(checkpoint));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        DirectedGraph graph = (externalGraph != null) ? externalGraph : loaded;
+        if (compress) {
+            final long compressStart = System.nanoTime();
+            final CompressedGraph compressed = new CompressedGraph(loaded, UFNode.workerCount);
+            System.err.println("Compressed arcs to " + compressed.bytes() + " bytes.");
+            System.err.println("Runtime for compression: " + (System.nanoTime() - compressStart));
+            // Let the uncompressed lists be collected.
+            graph = compressed;
+            loaded = null;
+        }
         // Create a new union find datastructure to maintain SCCs.
-        final UF unionfind = new UF(graph.N() + 1);
+        final UF unionfind = new UF(graph.N() + 1, UFNode.workerCount, linkPolicy);
+        unionfind.setSpinPolicy(spinPolicy);
         // Run the aglorithm.
-        final Map<Integer, Set<GraphNode>> sccs = new ConcurrentFastSCC().searchSCCs(graph, initNodes, unionfind, UFNode.workerCount);
+        if (summary) {
+            algorithm.search(graph, initNodes, unionfind, UFNode.workerCount);
+            if (externalGraph != null) {
+                System.err.println("Page cache: " + externalGraph.cacheStatistics() + ".");
+            }
+            new SCCSummary(graph, unionfind, UFNode.workerCount).print();
+            System.err.println("Total runtime: " + (System.nanoTime() - start));
+            return;
+        }
+        if (stream) {
+            // Print in the format of `printSCCs`, the output overlapping the search.
+            final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+            algorithm.setListener((root, members) -> {
+                final StringBuilder line = new StringBuilder();
+                for (int v: members) {
+                    line.append(v).append(' ');
+                }
+                out.println(line);
+            });
+            algorithm.search(graph, initNodes, unionfind, UFNode.workerCount);
+            out.flush();
+            if (externalGraph != null) {
+                System.err.println("Page cache: " + externalGraph.cacheStatistics() + ".");
+            }
+            System.err.println("Total runtime: " + (System.nanoTime() - start));
+            return;
+        }
+        final Map<Integer, Set<GraphNode>> sccs = algorithm.searchSCCs(graph, initNodes, unionfind, UFNode.workerCount);
+        if (externalGraph != null) {
+            System.err.println("Page cache: " + externalGraph.cacheStatistics() + ".");
+        }
 
-        printSCCs(sccs);
+        if (binaryOutput != null) {
+            try {
+                writeSCCs(sccs, binaryOutput);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            printSCCs(sccs);
+        }
 
         final long duration = System.nanoTime() - start;
         System.err.println("Total runtime: " + duration);
@@ -0,0 +1,109 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Parallel {
+
+    // Chunk is a half open range [from..to) of node ids processed by a single thread.
+    public interface Chunk {
+        void run(int from, int to);
+    }
+
+    private final ExecutorService executor;
+    private final int numCores;
+
+    // Constructor.
+    // Keeps `numCores` threads around for phases which run many parallel loops in a row.
+    public Parallel(final int numCores) {
+        this.executor = Executors.newFixedThreadPool(numCores);
+        this.numCores = numCores;
+    }
+
+    // run splits [0..n - 1] into contiguous chunks and processes them
+    // on the threads of this instance. Returns once all chunks are done.
+    public void run(final int n, final Chunk chunk) {
+        // Small ranges are not worth the hand off.
+        if (n < 1024) {
+            chunk.run(0, n);
+            return;
+        }
+        // A few chunks per thread to even out the skew in degrees.
+        final int chunks = numCores * 4;
+        final int size = Math.max(1, (n + chunks - 1) / chunks);
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int from = 0; from < n; from += size) {
+            final int start = from;
+            final int end = Math.min(n, from + size);
+            tasks.add(() -> {
+                chunk.run(start, end);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future: executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (ExecutionException e) {
+            // Do not swallow failures, e.g. failed assertions, of a chunk.
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // Step processes the `i`th element of a frontier and adds newly reached nodes to `next`.
+    public interface Step {
+        void run(int i, List<Integer> next);
+    }
+
+    // expand applies `step` to every element of a frontier of the given size in parallel
+    // and returns the concatenation of the newly reached nodes.
+    public int[] expand(final int size, final Step step) {
+        final ConcurrentLinkedQueue<List<Integer>> parts = new ConcurrentLinkedQueue<List<Integer>>();
+        this.run(size, (from, to) -> {
+            final List<Integer> next = new ArrayList<Integer>();
+            for (int i = from; i < to; i++) {
+                step.run(i, next);
+            }
+            parts.add(next);
+        });
+        return concat(parts);
+    }
+
+    // concat flattens the parts collected by parallel chunks into a single array.
+    public static int[] concat(final Collection<List<Integer>> parts) {
+        int size = 0;
+        for (List<Integer> part: parts) {
+            size += part.size();
+        }
+        final int[] result = new int[size];
+        int i = 0;
+        for (List<Integer> part: parts) {
+            for (int v: part) {
+                result[i++] = v;
+            }
+        }
+        return result;
+    }
+
+    // shutdown releases the threads of this instance.
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // forChunks is a one shot version of `run` on `numCores` threads.
+    public static void forChunks(final int n, final int numCores, final Chunk chunk) {
+        final Parallel parallel = new Parallel(numCores);
+        parallel.run(n, chunk);
+        parallel.shutdown();
+    }
+
+}
@@ -0,0 +1,95 @@
+package tarjanUF;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Reclaimer frees the per node data of dead SCCs while the `onTheFly` search is running.
+// Once the root of an SCC is dead, its nodes are never explored, claimed or united again and
+// only their parent pointer is needed to tell the SCC in the end. So their arcs and their
+// worker sets can go, which keeps the peak memory low on graphs with many SCCs. Their list
+// links stay, as a worker picking from the dead list may still be walking over them.
+//
+// The nodes of an SCC cannot be enumerated from its cyclic list once it is dead, as the list
+// is shortened while it is picked from. Therefore `UF` keeps the members of every set in a
+// second cyclic list and tells the reclaimer the root of every SCC it marks dead. A background
+// thread takes these roots from a queue and frees the members of their SCCs, so every node is
+// visited once however many SCCs die.
+//
+// The arcs are dropped from the graph searched, which cannot be searched again afterwards.
+public class Reclaimer implements Runnable {
+
+    // Milliseconds between two looks at the queue.
+    private static final long PERIOD = 100;
+
+    private final DirectedGraph graph;
+    private final UF unionfind;
+    // The roots of the SCCs marked dead and not reclaimed yet.
+    private final Queue<Integer> dead = new ConcurrentLinkedQueue<Integer>();
+    private volatile boolean stopped;
+    private Thread thread;
+    private long reclaimed;
+    private int drains;
+
+    // Constructor.
+    // Attaches itself to `unionfind`, so it is to be constructed before the search starts,
+    // trimming included.
+    public Reclaimer(final DirectedGraph graph, final UF unionfind) {
+        this.graph = graph;
+        this.unionfind = unionfind;
+        unionfind.setReclaimer(this);
+    }
+
+    // start begins reclaiming in a background thread.
+    public void start() {
+        this.thread = new Thread(this);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // stop ends reclaiming and reports how many nodes were reclaimed.
+    public void stop() {
+        this.stopped = true;
+        this.thread.interrupt();
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        System.err.println("Reclaimed nodes: " + this.reclaimed + " in " + this.drains + " drains.");
+    }
+
+    // died queues the SCC of "node root", which was just marked dead.
+    public void died(final int root) {
+        this.dead.add(root);
+    }
+
+    @Override
+    public void run() {
+        while (!this.stopped) {
+            try {
+                Thread.sleep(PERIOD);
+            } catch (InterruptedException e) {
+                // Stopped.
+                break;
+            }
+            if (!this.dead.isEmpty()) {
+                this.drain();
+            }
+        }
+    }
+
+    // drain reclaims the members of the SCCs queued so far.
+    private void drain() {
+        this.drains++;
+        for (Integer root = this.dead.poll(); root != null && !this.stopped; root = this.dead.poll()) {
+            int m = root;
+            do {
+                this.unionfind.node(m).releaseWorkers();
+                this.graph.release(m - 1);
+                this.reclaimed++;
+                m = this.unionfind.nextMember(m);
+            } while (m != root);
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Reordering renumbers the nodes of a graph so that nodes explored close together in time
+// also lie close together in memory. The ids produced by `divineParser/augment` are
+// essentially random, which makes every arc traversal of `SCCWorker` a cache miss.
+public class Reordering {
+
+    // Order selects how the new ids are assigned:
+    // 1. bfs:
+    //      Breadth first order from the initial nodes, computed level by level in parallel.
+    // 2. rcm:
+    //      Reverse Cuthill-McKee order from the initial nodes, i.e. breadth first order
+    //      visiting successors by increasing degree, reversed. Sequential.
+    public enum Order {
+        bfs, rcm;
+    };
+
+    // newId[v] is the id of node `v` in the reordered graph and oldId its inverse.
+    private final int[] newId;
+    private final int[] oldId;
+
+    // Constructor.
+    // Computes the permutation of the nodes of `graph` in the given order.
+    public Reordering(final DirectedGraph graph, final List<Integer> initNodes, final Order order, final int numCores) {
+        final int n = graph.N();
+        final int[] visitOrder;
+        if (order == Order.bfs) {
+            visitOrder = bfs(graph, initNodes, numCores);
+        } else {
+            visitOrder = rcm(graph, initNodes);
+        }
+
+        this.newId = new int[n];
+        this.oldId = new int[n];
+        Arrays.fill(this.newId, -1);
+        int next = 0;
+        for (int v: visitOrder) {
+            this.newId[v] = next;
+            this.oldId[next] = v;
+            next++;
+        }
+        // Nodes not reachable from the initial nodes keep their relative order at the end.
+        for (int v = 0; v < n; v++) {
+            if (this.newId[v] == -1) {
+                this.newId[v] = next;
+                this.oldId[next] = v;
+                next++;
+            }
+        }
+    }
+
+    // newId returns the id of node `v` of the original graph in the reordered graph.
+    public int newId(final int v) {
+        return this.newId[v];
+    }
+
+    // oldId returns the id of node `v` of the reordered graph in the original graph.
+    public int oldId(final int v) {
+        return this.oldId[v];
+    }
+
+    // permute returns a copy of `graph` with all ids renumbered.
+    // The copy is always an uncompressed `Graph`.
+    public Graph permute(final DirectedGraph graph, final int numCores) {
+        final int n = graph.N();
+        final GraphNode[] nodes = new GraphNode[n];
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final int old = this.oldId[v];
+                final List<Integer> arcs = new ArrayList<Integer>(graph.outDegree(old));
+                final PrimitiveIterator.OfInt oldArcs = graph.arcs(old, 0);
+                while (oldArcs.hasNext()) {
+                    arcs.add(this.newId[oldArcs.nextInt()]);
+                }
+                nodes[v] = new GraphNode(v);
+                nodes[v].setArcs(arcs);
+            }
+        });
+
+        final Graph permuted = new Graph();
+        for (GraphNode node: nodes) {
+            permuted.addNode(node);
+        }
+        return permuted;
+    }
+
+    // permute returns the renumbered list of `nodes`.
+    public List<Integer> permute(final List<Integer> nodes) {
+        final List<Integer> permuted = new ArrayList<Integer>(nodes.size());
+        for (int v: nodes) {
+            permuted.add(this.newId[v]);
+        }
+        return permuted;
+    }
+
+    // bfs returns the nodes reachable from `initNodes` in breadth first order.
+    // Each level is expanded in parallel, the order within a level is arbitrary.
+    private static int[] bfs(final DirectedGraph graph, final List<Integer> initNodes, final int numCores) {
+        final AtomicIntegerArray seen = new AtomicIntegerArray(graph.N());
+        final List<int[]> levels = new ArrayList<int[]>();
+        int[] frontier = new int[initNodes.size()];
+        int count = 0;
+        for (int v: initNodes) {
+            if (seen.compareAndSet(v, 0, 1)) {
+                frontier[count++] = v;
+            }
+        }
+        frontier = Arrays.copyOf(frontier, count);
+
+        final Parallel parallel = new Parallel(numCores);
+        int size = 0;
+        while (frontier.length > 0) {
+            levels.add(frontier);
+            size += frontier.length;
+            final int[] current = frontier;
+            frontier = parallel.expand(current.length, (i, next) -> {
+                final PrimitiveIterator.OfInt arcs = graph.arcs(current[i], 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (seen.compareAndSet(w, 0, 1)) {
+                        next.add(w);
+                    }
+                }
+            });
+        }
+        parallel.shutdown();
+
+        final int[] order = new int[size];
+        int i = 0;
+        for (int[] level: levels) {
+            System.arraycopy(level, 0, order, i, level.length);
+            i += level.length;
+        }
+        return order;
+    }
+
+    // rcm returns the nodes reachable from `initNodes` in reverse Cuthill-McKee order.
+    private static int[] rcm(final DirectedGraph graph, final List<Integer> initNodes) {
+        final int n = graph.N();
+        final boolean[] seen = new boolean[n];
+        final int[] order = new int[n];
+        int head = 0, tail = 0;
+        final List<Integer> successors = new ArrayList<Integer>();
+
+        for (int init: initNodes) {
+            if (seen[init]) {
+                continue;
+            }
+            seen[init] = true;
+            order[tail++] = init;
+            while (head < tail) {
+                successors.clear();
+                final PrimitiveIterator.OfInt arcs = graph.arcs(order[head++], 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (!seen[w]) {
+                        seen[w] = true;
+                        successors.add(w);
+                    }
+                }
+                successors.sort((a, b) -> Integer.compare(graph.outDegree(a), graph.outDegree(b)));
+                for (int w: successors) {
+                    order[tail++] = w;
+                }
+            }
+        }
+
+        // Reverse the order found.
+        final int[] result = new int[tail];
+        for (int i = 0; i < tail; i++) {
+            result[i] = order[tail - 1 - i];
+        }
+        return result;
+    }
+
+}
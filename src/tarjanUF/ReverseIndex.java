@@ -0,0 +1,64 @@
+package tarjanUF;
+
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ReverseIndex {
+
+    // The predecessors of node `i` are stored in `sources[offsets[i]..offsets[i + 1] - 1]`.
+    // Self loops are left out as they never matter for SCC decomposition.
+    private final int[] offsets;
+    private final int[] sources;
+
+    // Constructor.
+    // Builds the index in parallel with `numCores` threads. Requires the nodes of the
+    // graph to be the contiguous integers [0..graph.N() - 1].
+    public ReverseIndex(final DirectedGraph graph, final int numCores) {
+        final int n = graph.N();
+        final AtomicIntegerArray inDegree = new AtomicIntegerArray(n);
+
+        // First count the in-degree of every node.
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final PrimitiveIterator.OfInt arcs = graph.arcs(v, 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (w != v) {
+                        inDegree.incrementAndGet(w);
+                    }
+                }
+            }
+        });
+
+        // A prefix sum over the in-degrees gives the start of every node's block.
+        this.offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            this.offsets[v + 1] = this.offsets[v] + inDegree.get(v);
+        }
+        this.sources = new int[this.offsets[n]];
+
+        // Then fill the blocks. `inDegree` is reused as the per-node fill cursor.
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final PrimitiveIterator.OfInt arcs = graph.arcs(v, 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (w != v) {
+                        this.sources[this.offsets[w] + inDegree.decrementAndGet(w)] = v;
+                    }
+                }
+            }
+        });
+    }
+
+    // inDegree returns the number of arcs ending in `id`, self loops excluded.
+    public int inDegree(final int id) {
+        return this.offsets[id + 1] - this.offsets[id];
+    }
+
+    // predecessor returns the `i`th predecessor of `id`.
+    public int predecessor(final int id, final int i) {
+        return this.sources[this.offsets[id] + i];
+    }
+
+}
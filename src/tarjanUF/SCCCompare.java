@@ -0,0 +1,255 @@
+package tarjanUF;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+// SCCCompare checks whether two SCC outputs describe the same partition of the nodes.
+// Both outputs are streamed into an array holding a representative for every node, which is
+// then made canonical in parallel by choosing the smallest node of each SCC. The partitions
+// are equal if and only if the canonical arrays are.
+public class SCCCompare {
+
+    // Format is the format of an SCC output:
+    // 1. lines:
+    //      One SCC per line with its nodes separated by spaces, as printed by `Main`.
+    // 2. pairs:
+    //      A node and the representative of its SCC per line, as printed by UFSCC.
+    // 3. binary:
+    //      BINARY_MAGIC, the number of nodes `n` and the representative of each node
+    //      [0..n - 1] as big endian ints, -1 for absent nodes, as written by `Main`.
+    public enum Format {
+        lines, pairs, binary;
+    };
+
+    public static final int BINARY_MAGIC = 0x53434342;
+    // ABSENT marks a node which does not occur in an output.
+    private static final int ABSENT = -1;
+
+    // read streams the SCC output in `filename` and returns the representative of every node.
+    public static int[] read(final String filename, final Format format) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename), 1 << 16)) {
+            if (format == Format.binary) {
+                final DataInputStream data = new DataInputStream(in);
+                if (data.readInt() != BINARY_MAGIC) {
+                    throw new IOException(filename + " is not a binary SCC output.");
+                }
+                final int[] rep = new int[data.readInt()];
+                for (int v = 0; v < rep.length; v++) {
+                    rep[v] = data.readInt();
+                }
+                return rep;
+            }
+
+            int[] rep = new int[1024];
+            Arrays.fill(rep, ABSENT);
+            int max = -1;
+            // The representative of the current line, -1 at the start of a line.
+            int lineRep = -1;
+            // The node of the current line in the pairs format, -1 before it is read.
+            int lineNode = -1;
+            final Tokenizer tokens = new Tokenizer(in, filename);
+            for (int token = tokens.next(); token != Tokenizer.EOF; token = tokens.next()) {
+                if (token == Tokenizer.EOL) {
+                    if (format == Format.pairs && lineNode != -1) {
+                        throw new IOException(filename + ": line " + (tokens.line - 1) + " is not a pair.");
+                    }
+                    lineRep = -1;
+                    continue;
+                }
+
+                final int node, nodeRep;
+                if (format == Format.lines) {
+                    if (lineRep == -1) {
+                        lineRep = token;
+                    }
+                    node = token;
+                    nodeRep = lineRep;
+                } else if (lineNode == -1) {
+                    lineNode = token;
+                    continue;
+                } else {
+                    node = lineNode;
+                    nodeRep = token;
+                    lineNode = -1;
+                }
+
+                if (node >= rep.length || nodeRep >= rep.length) {
+                    final int old = rep.length;
+                    rep = Arrays.copyOf(rep, Math.max(Math.max(node, nodeRep) + 1, old * 2));
+                    Arrays.fill(rep, old, rep.length, ABSENT);
+                }
+                if (rep[node] != ABSENT) {
+                    throw new IOException(filename + ": node " + node + " occurs twice.");
+                }
+                rep[node] = nodeRep;
+                max = Math.max(max, Math.max(node, nodeRep));
+            }
+            if (lineNode != -1) {
+                throw new IOException(filename + ": line " + tokens.line + " is not a pair.");
+            }
+            return Arrays.copyOf(rep, max + 1);
+        }
+    }
+
+    // canonicalize replaces the representative of every node by the smallest node of its SCC.
+    // In the pairs format a representative need not be a node of the output itself, so SCCs are
+    // identified by the representative given and not by following it.
+    public static int[] canonicalize(final int[] rep, final int numCores) {
+        final AtomicIntegerArray smallest = new AtomicIntegerArray(rep.length);
+        Parallel.forChunks(rep.length, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                smallest.set(v, Integer.MAX_VALUE);
+            }
+        });
+        Parallel.forChunks(rep.length, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                if (rep[v] != ABSENT) {
+                    smallest.accumulateAndGet(rep[v], v, Math::min);
+                }
+            }
+        });
+        final int[] canonical = new int[rep.length];
+        Parallel.forChunks(rep.length, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                canonical[v] = (rep[v] == ABSENT) ? ABSENT : smallest.get(rep[v]);
+            }
+        });
+        return canonical;
+    }
+
+    // compare prints up to `limit` nodes whose SCCs differ in the canonical arrays `a` and `b`
+    // and returns the number of such nodes.
+    public static long compare(final int[] a, final int[] b, final int limit, final int numCores) {
+        final int n = Math.max(a.length, b.length);
+        final AtomicLong differences = new AtomicLong();
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final int ra = (v < a.length) ? a[v] : ABSENT;
+                final int rb = (v < b.length) ? b[v] : ABSENT;
+                if (ra != rb && differences.incrementAndGet() <= limit) {
+                    System.out.println(describe(v, ra, "1") + ", " + describe(v, rb, "2") + ".");
+                }
+            }
+        });
+        return differences.get();
+    }
+
+    private static String describe(final int v, final int rep, final String output) {
+        if (rep == ABSENT) {
+            return v + " is not in " + output;
+        }
+        return v + " is in the SCC of " + rep + " in " + output;
+    }
+
+    // Tokenizer splits a text output into non-negative integers and line ends.
+    private static class Tokenizer {
+        static final int EOL = -1;
+        static final int EOF = -2;
+
+        private final InputStream in;
+        private final String filename;
+        private int line = 1;
+        private boolean pendingEol;
+
+        Tokenizer(final InputStream in, final String filename) {
+            this.in = in;
+            this.filename = filename;
+        }
+
+        int next() throws IOException {
+            if (pendingEol) {
+                pendingEol = false;
+                line++;
+                return EOL;
+            }
+            int c = in.read();
+            while (c == ' ' || c == '\t' || c == '\r') {
+                c = in.read();
+            }
+            if (c == -1) {
+                return EOF;
+            }
+            if (c == '\n') {
+                line++;
+                return EOL;
+            }
+            int value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                c = in.read();
+            }
+            if (c == '\n') {
+                pendingEol = true;
+            } else if (c != ' ' && c != '\t' && c != '\r' && c != -1) {
+                throw new IOException(filename + ": unexpected character '" + (char) c + "' in line " + line + ".");
+            }
+            return value;
+        }
+    }
+
+    public static void main(String[] args) {
+        // The tool requires 2 parameters in its input.
+        // 1. and 2. The SCC outputs to be compared.
+        // Any further parameters are options:
+        //      --format-1 <lines|pairs|binary>: The format of the first output, lines by default.
+        //      --format-2 <lines|pairs|binary>: The format of the second output, lines by default.
+        //      --threads <t>: Number of threads, all available processors by default.
+        //      --limit <n>: Print at most n differing nodes, 10 by default.
+        // Exits with status 1 if the partitions differ.
+        assert args.length >= 2;
+        Format format1 = Format.lines;
+        Format format2 = Format.lines;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int limit = 10;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format-1":
+                    format1 = Format.valueOf(args[++i]);
+                    break;
+                case "--format-2":
+                    format2 = Format.valueOf(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--limit":
+                    limit = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        final long start = System.nanoTime();
+        final long differences;
+        try {
+            final int[] a = canonicalize(read(args[0], format1), threads);
+            final int[] b = canonicalize(read(args[1], format2), threads);
+            System.err.println("Runtime for reading: " + (System.nanoTime() - start));
+            differences = compare(a, b, limit, threads);
+        } catch (EOFException e) {
+            System.err.println("An output is truncated.");
+            System.exit(2);
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+            return;
+        }
+        System.err.println("Runtime for comparison: " + (System.nanoTime() - start));
+
+        if (differences > 0) {
+            System.out.println(differences + " nodes are in different SCCs.");
+            System.exit(1);
+        }
+        System.out.println("The SCCs are equal.");
+    }
+
+}
@@ -0,0 +1,173 @@
+package tarjanUF;
+
+import java.util.Set;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingControl;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+// SCCEvents are the Java Flight Recorder events emitted by the search, so that a run can be
+// profiled with JFR, e.g. `java -XX:StartFlightRecording:filename=scc.jfr ...`. All of them are
+// enabled by default. The phases are recorded once per run, the events which may occur often
+// have a threshold below which they are not recorded, so they cost next to nothing when a
+// recording is running and nothing but an allocation, which is usually optimized away, when
+// none is.
+public class SCCEvents {
+
+    // InputLoad is the time spent reading the graph.
+    @Name("tarjanUF.InputLoad")
+    @Label("Input Load")
+    @Category({"tarjanUF", "Phases"})
+    @StackTrace(false)
+    public static class InputLoad extends Event {
+        @Label("Graph")
+        public String graph;
+
+        @Label("Nodes")
+        public int nodes;
+    }
+
+    // UFConstruction is the time spent creating the union find structure.
+    @Name("tarjanUF.UFConstruction")
+    @Label("Union Find Construction")
+    @Category({"tarjanUF", "Phases"})
+    @StackTrace(false)
+    public static class UFConstruction extends Event {
+        @Label("Nodes")
+        public int nodes;
+    }
+
+    // Search is the time spent finding the SCCs, including reordering and trimming.
+    @Name("tarjanUF.Search")
+    @Label("Search")
+    @Category({"tarjanUF", "Phases"})
+    @StackTrace(false)
+    public static class Search extends Event {
+        @Label("Engine")
+        public String engine;
+
+        @Label("Threads")
+        public int threads;
+
+        @Label("Nodes")
+        public int nodes;
+    }
+
+    // ResultAssembly is the time spent grouping the nodes by their SCC.
+    @Name("tarjanUF.ResultAssembly")
+    @Label("Result Assembly")
+    @Category({"tarjanUF", "Phases"})
+    @StackTrace(false)
+    public static class ResultAssembly extends Event {
+        @Label("SCCs")
+        public int sccs;
+    }
+
+    // WorkerDFS is the DFS of an `SCCWorker` from its initial node until it backtracked
+    // out of it.
+    @Name("tarjanUF.WorkerDFS")
+    @Label("Worker DFS")
+    @Category({"tarjanUF", "Workers"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static class WorkerDFS extends Event {
+        @Label("Worker Id")
+        public int workerId;
+
+        @Label("Initial Node")
+        @Description("The node the DFS started from, or resumed at if restored from a checkpoint")
+        public int node;
+
+        @Label("Restored")
+        public boolean restored;
+    }
+
+    // SCCDeath is an SCC found by the `onTheFly` engine. Its duration is zero, the `age` is
+    // the time since the first of its nodes was claimed. Only SCCs of at least `minSize`
+    // nodes are recorded. The size may miss the nodes of unions still completing when the
+    // SCC dies.
+    @Name("tarjanUF.SCCDeath")
+    @Label("SCC Death")
+    @Category({"tarjanUF", "Workers"})
+    @StackTrace(false)
+    public static class SCCDeath extends Event {
+        @Label("Representative")
+        public int root;
+
+        @Label("Size")
+        public int size;
+
+        @Label("Age")
+        @Timespan(Timespan.NANOSECONDS)
+        public long age;
+
+        @Label("Minimum Size")
+        @Description("Record SCCs of at least this many nodes only")
+        @SettingDefinition
+        @Name("minSize")
+        protected boolean minSize(final MinSize setting) {
+            return this.size >= setting.value;
+        }
+    }
+
+    // LockSpin is the time a worker waited for a lock in `UF.lockUF` or `UF.lockList`.
+    @Name("tarjanUF.LockSpin")
+    @Label("Lock Spin")
+    @Category({"tarjanUF", "Contention"})
+    @Threshold("1 ms")
+    public static class LockSpin extends Event {
+        @Label("Lock")
+        public String lock;
+
+        @Label("Node")
+        public int node;
+
+        @Label("Spins")
+        public int spins;
+    }
+
+    // MinSize is the `minSize` setting of `SCCDeath`. Of several recordings the smallest
+    // value is used.
+    public static class MinSize extends SettingControl {
+        private static final String DEFAULT = "1000";
+
+        private volatile int value = Integer.parseInt(DEFAULT);
+        private String text = DEFAULT;
+
+        @Override
+        public String combine(final Set<String> values) {
+            int min = Integer.MAX_VALUE;
+            for (String v: values) {
+                min = Math.min(min, parse(v));
+            }
+            return values.isEmpty() ? DEFAULT : Integer.toString(min);
+        }
+
+        @Override
+        public void setValue(final String value) {
+            this.text = value;
+            this.value = parse(value);
+        }
+
+        @Override
+        public String getValue() {
+            return this.text;
+        }
+
+        private static int parse(final String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return Integer.parseInt(DEFAULT);
+            }
+        }
+    }
+
+}
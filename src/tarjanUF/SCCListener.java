@@ -0,0 +1,12 @@
+package tarjanUF;
+
+// SCCListener receives the SCCs of a search one by one, set by `ConcurrentFastSCC.setListener`.
+// The calls are made by a single thread, one after the other, so a listener needs no
+// synchronization of its own.
+public interface SCCListener {
+
+    // found is called with the representative `root` of an SCC and its `members`, including
+    // the root. The members may be kept by the listener.
+    void found(int root, int[] members);
+
+}
@@ -0,0 +1,195 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.IntPredicate;
+
+// SCCStream hands the SCCs to an `SCCListener` while the search is still running. A worker
+// which marks an SCC dead in `UF.markDead` only appends its root to a buffer of its thread.
+// Full buffers, buffers older than `MAX_DELAY` and the buffers of workers which finished a
+// DFS are passed to a dispatcher thread, which collects the members of every SCC from the
+// cyclic member list kept by `UF` and calls the listener. Since a dead SCC is never united
+// again, its member list does not change any more.
+//
+// The SCCs which are not marked dead by `UF.markDead` or `UF.markTrivial`, those found by
+// the other engines and the nodes never reached, are reported by `finish` after the search.
+public class SCCStream {
+
+    // The number of roots a thread collects before it passes them on.
+    private static final int BUFFER_SIZE = 64;
+    // The time in nanoseconds after which roots are passed on even if the buffer is not full.
+    private static final long MAX_DELAY = 10_000_000L;
+    // Tells the dispatcher that no more roots follow.
+    private static final int[] END = new int[0];
+
+    // Buffer holds the roots marked dead by one thread, not yet passed on.
+    private static class Buffer {
+        final int[] roots = new int[BUFFER_SIZE];
+        int count;
+        // The time the first root was added.
+        long first;
+    }
+
+    private final UF unionfind;
+    private final SCCListener listener;
+    // The nodes to report, null for all.
+    private final IntPredicate nodes;
+    private final BlockingQueue<int[]> queue = new LinkedBlockingQueue<int[]>();
+    private final List<Buffer> buffers = new ArrayList<Buffer>();
+    private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(() -> {
+        final Buffer buffer = new Buffer();
+        synchronized (this.buffers) {
+            this.buffers.add(buffer);
+        }
+        return buffer;
+    });
+    private final Thread dispatcher;
+    // The roots reported by the dispatcher. Only read by `finish` once it has stopped.
+    private final BitSet reported = new BitSet();
+    // The first exception thrown by the listener.
+    private volatile RuntimeException failure;
+
+    // Constructor.
+    // Reports the SCCs in `unionfind` of the nodes accepted by `nodes`, all if it is null.
+    public SCCStream(final UF unionfind, final SCCListener listener, final IntPredicate nodes) {
+        this.unionfind = unionfind;
+        this.listener = listener;
+        this.nodes = nodes;
+        this.dispatcher = new Thread(this::dispatch, "scc-dispatcher");
+        this.dispatcher.setDaemon(true);
+    }
+
+    // start starts the dispatcher. The SCCs marked dead in `unionfind` are only streamed if it
+    // is attached with `UF.setStream` before the search.
+    public void start() {
+        this.dispatcher.start();
+    }
+
+    // died appends "node root" of an SCC marked dead to the buffer of the calling thread.
+    public void died(final int root) {
+        final Buffer buffer = this.buffer.get();
+        final long now = System.nanoTime();
+        if (buffer.count == 0) {
+            buffer.first = now;
+        }
+        buffer.roots[buffer.count++] = root;
+        if (buffer.count == BUFFER_SIZE || now - buffer.first > MAX_DELAY) {
+            this.pass(buffer);
+        }
+    }
+
+    // flush passes the roots buffered by the calling thread to the dispatcher.
+    public void flush() {
+        this.pass(this.buffer.get());
+    }
+
+    private void pass(final Buffer buffer) {
+        if (buffer.count > 0) {
+            this.queue.add(Arrays.copyOf(buffer.roots, buffer.count));
+            buffer.count = 0;
+        }
+    }
+
+    // dispatch calls the listener for the roots passed on until `finish` ends the stream.
+    private void dispatch() {
+        while (true) {
+            final int[] roots;
+            try {
+                roots = this.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (roots == END) {
+                return;
+            }
+            for (int root: roots) {
+                this.reported.set(root);
+                // The nodes left out are not searched, but may have been trimmed.
+                if (this.nodes == null || this.nodes.test(root - 1)) {
+                    this.report(root, this.members(root));
+                }
+            }
+        }
+    }
+
+    // members returns the ids of the nodes of the dead SCC of "node root".
+    private int[] members(final int root) {
+        int[] members = new int[4];
+        int size = 0;
+        int m = root;
+        do {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, 2 * size);
+            }
+            members[size++] = m - 1;
+            m = this.unionfind.nextMember(m);
+        } while (m != root);
+        return Arrays.copyOf(members, size);
+    }
+
+    private void report(final int root, final int[] members) {
+        if (this.failure != null) {
+            return;
+        }
+        try {
+            this.listener.found(root - 1, members);
+        } catch (RuntimeException e) {
+            this.failure = e;
+        }
+    }
+
+    // finish reports the SCCs of the `n` nodes not streamed during the search, once the
+    // search is done, and waits for the dispatcher. Rethrows the failure of the listener.
+    public void finish(final int n) {
+        synchronized (this.buffers) {
+            for (Buffer buffer: this.buffers) {
+                this.pass(buffer);
+            }
+        }
+        this.queue.add(END);
+        try {
+            this.dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // Group the remaining nodes by their root like `Batch` does.
+        final int[] next = new int[n];
+        final int[] first = new int[n];
+        Arrays.fill(first, -1);
+        for (int v = n - 1; v >= 0; v--) {
+            if (this.nodes != null && !this.nodes.test(v)) {
+                continue;
+            }
+            final int root = this.unionfind.find(v + 1) - 1;
+            if (!this.reported.get(root + 1)) {
+                next[v] = first[root];
+                first[root] = v;
+            }
+        }
+        for (int root = 0; root < n; root++) {
+            if (first[root] == -1) {
+                continue;
+            }
+            int size = 0;
+            for (int v = first[root]; v != -1; v = next[v]) {
+                size++;
+            }
+            final int[] members = new int[size];
+            size = 0;
+            for (int v = first[root]; v != -1; v = next[v]) {
+                members[size++] = v;
+            }
+            this.report(root + 1, members);
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package tarjanUF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// SCCSummary answers aggregate questions about the SCCs found, read directly from the final
+// union find roots, without grouping the nodes into sets: the number of SCCs, a histogram of
+// their sizes, the largest SCC and the bottom SCCs, which have no arc leaving them.
+//
+// All passes run in parallel chunks over the nodes. Besides the roots, which are collected in
+// ascending order so that the index of an SCC is found by binary search, only a size counter
+// and an exit flag per SCC are kept.
+public class SCCSummary {
+
+    private final int n;
+    // The representatives of the SCCs in ascending order.
+    private final int[] roots;
+    private final AtomicIntegerArray sizes;
+    // exits[i] is 1 if an arc leaves the `i`th SCC.
+    private final AtomicIntegerArray exits;
+
+    // Constructor.
+    // Summarizes the SCCs recorded in `unionfind` by a finished search of `graph`. The arcs
+    // of `graph` are needed to tell the bottom SCCs, so they must not have been released.
+    public SCCSummary(final DirectedGraph graph, final UF unionfind, final int numCores) {
+        final long start = System.nanoTime();
+        this.n = graph.N();
+
+        // Collect the roots per chunk, the chunks are concatenated in order.
+        final int chunks = Math.max(1, Math.min(this.n, numCores * 4));
+        final int chunk = Math.max(1, (this.n + chunks - 1) / chunks);
+        final List<List<Integer>> parts = new ArrayList<List<Integer>>();
+        for (int c = 0; c < chunks; c++) {
+            parts.add(new ArrayList<Integer>());
+        }
+        final Parallel parallel = new Parallel(numCores);
+        parallel.run(chunks, (first, last) -> {
+            for (int c = first; c < last; c++) {
+                for (int v = c * chunk; v < Math.min(this.n, (c + 1) * chunk); v++) {
+                    if (unionfind.find(v + 1) == v + 1) {
+                        parts.get(c).add(v);
+                    }
+                }
+            }
+        });
+        this.roots = Parallel.concat(parts);
+        final int count = this.roots.length;
+
+        // Count the members of every SCC and flag the SCCs with an arc to another one.
+        this.sizes = new AtomicIntegerArray(count);
+        this.exits = new AtomicIntegerArray(count);
+        parallel.run(this.n, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                final int root = unionfind.find(v + 1) - 1;
+                final int index = this.index(root);
+                this.sizes.incrementAndGet(index);
+                if (this.exits.get(index) != 0) {
+                    continue;
+                }
+                final int degree = graph.outDegree(v);
+                final PrimitiveIterator.OfInt arcs = graph.arcs(v, 0);
+                for (int k = 0; k < degree; k++) {
+                    if (unionfind.find(arcs.nextInt() + 1) - 1 != root) {
+                        this.exits.set(index, 1);
+                        break;
+                    }
+                }
+            }
+        });
+        parallel.shutdown();
+        System.err.println("Runtime for summary: " + (System.nanoTime() - start));
+    }
+
+    // index returns the index of the SCC represented by `root`.
+    private int index(final int root) {
+        int low = 0;
+        int high = this.roots.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (this.roots[middle] < root) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // count returns the number of SCCs.
+    public int count() {
+        return this.roots.length;
+    }
+
+    // size returns the number of nodes in the SCC represented by `root`.
+    public int size(final int root) {
+        return this.sizes.get(this.index(root));
+    }
+
+    // largest returns the representative of an SCC with the most nodes, -1 for an empty graph.
+    public int largest() {
+        int largest = -1;
+        int size = 0;
+        for (int i = 0; i < this.roots.length; i++) {
+            if (this.sizes.get(i) > size) {
+                size = this.sizes.get(i);
+                largest = this.roots[i];
+            }
+        }
+        return largest;
+    }
+
+    // histogram returns the number of SCCs by size, where `histogram()[k]` counts the SCCs
+    // with [2^k..2^(k+1) - 1] nodes.
+    public long[] histogram() {
+        final long[] histogram = new long[32 - Integer.numberOfLeadingZeros(Math.max(1, this.n))];
+        for (int i = 0; i < this.roots.length; i++) {
+            histogram[31 - Integer.numberOfLeadingZeros(this.sizes.get(i))]++;
+        }
+        return histogram;
+    }
+
+    // bottom returns the representatives of the SCCs without arcs to other SCCs in ascending order.
+    public int[] bottom() {
+        int count = 0;
+        for (int i = 0; i < this.roots.length; i++) {
+            if (this.exits.get(i) == 0) {
+                count++;
+            }
+        }
+        final int[] bottom = new int[count];
+        count = 0;
+        for (int i = 0; i < this.roots.length; i++) {
+            if (this.exits.get(i) == 0) {
+                bottom[count++] = this.roots[i];
+            }
+        }
+        return bottom;
+    }
+
+    // print outputs the summary.
+    public void print() {
+        System.out.println("SCCs: " + this.count());
+        final int largest = this.largest();
+        if (largest >= 0) {
+            System.out.println("Largest SCC: " + this.size(largest) + " nodes, represented by " + largest);
+        }
+        System.out.println("Size histogram:");
+        final long[] histogram = this.histogram();
+        for (int k = 0; k < histogram.length; k++) {
+            if (histogram[k] > 0) {
+                final long low = 1L << k;
+                final long high = (1L << (k + 1)) - 1;
+                System.out.println("  " + ((low == high) ? "" + low : low + "-" + high) + ": " + histogram[k]);
+            }
+        }
+        final int[] bottom = this.bottom();
+        System.out.print("Bottom SCCs: " + bottom.length);
+        for (int root: bottom) {
+            System.out.print(" ");
+            System.out.print(root);
+        }
+        System.out.println();
+    }
+
+}
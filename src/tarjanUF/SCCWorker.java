@@ -1,10 +1,9 @@
 package tarjanUF;
 
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
 import java.util.Stack;
 
 import tarjanUF.UF.PickStatus;
@@ -12,11 +11,11 @@ import tarjanUF.UF.ClaimStatus;
 
 public class SCCWorker implements Runnable {
 
-    private final Graph graph;
-    private final Map<Long, Integer> workerMap;
-    private final AtomicInteger workerCount;
-    // workerId will be assigned in the `run` method since
-    // the worker executing can be known only from there.
+    private final DirectedGraph graph;
+    // The ids not used by a running worker. An id is taken for the whole DFS, so a worker
+    // keeps its id in the worker sets across checkpoints.
+    private final Queue<Integer> freeIds;
+    // workerId will be taken from `freeIds` in the `run` method.
     private int workerId;
     // nodeId denotes the node from where the DFS is to be started.
     private int nodeId;
@@ -25,45 +24,132 @@ public class SCCWorker implements Runnable {
     private Stack<Integer> recursionStack;
     // The so called tarjanStack in Tarjan's sequential algorithm.
     private Stack<Integer> rootStack;
+    // The partially consumed arc iterators of the nodes on the recursionStack.
+    private Stack<BatchedArcs> arcsStack;
+    // Number of successors whose roots are resolved at once.
+    private final int batch;
+    // Stops the worker for checkpoints, null if none are taken.
+    private final Checkpointer checkpointer;
+    // Limits the number of workers exploring at the same time, null if there is no limit.
+    private final AdaptiveController controller;
+    // The state this worker resumes from, null if it starts a new DFS from `nodeId`.
+    private final Checkpointer.WorkerState restored;
 
-    public SCCWorker(final Graph graph,
-                     final Map<Long, Integer> workerMap,
-                     final AtomicInteger workerCount,
+    public SCCWorker(final DirectedGraph graph,
+                     final Queue<Integer> freeIds,
                      final int nodeId,
-                     UF unionfind) {
+                     UF unionfind,
+                     final Checkpointer checkpointer,
+                     final AdaptiveController controller,
+                     final int batch) {
+        this(graph, freeIds, nodeId, unionfind, checkpointer, controller, batch, null);
+    }
+
+    // Constructor.
+    // Resumes the DFS of a worker from the state saved by `checkpointer`.
+    public SCCWorker(final DirectedGraph graph,
+                     final Queue<Integer> freeIds,
+                     UF unionfind,
+                     final Checkpointer checkpointer,
+                     final AdaptiveController controller,
+                     final int batch,
+                     final Checkpointer.WorkerState restored) {
+        this(graph, freeIds, -1, unionfind, checkpointer, controller, batch, restored);
+    }
+
+    private SCCWorker(final DirectedGraph graph,
+                      final Queue<Integer> freeIds,
+                      final int nodeId,
+                      UF unionfind,
+                      final Checkpointer checkpointer,
+                      final AdaptiveController controller,
+                      final int batch,
+                      final Checkpointer.WorkerState restored) {
         this.graph = graph;
-        this.workerMap = workerMap;
-        this.workerCount = workerCount;
+        this.freeIds = freeIds;
         this.nodeId = nodeId;
         this.unionfind = unionfind;
         this.recursionStack = new Stack<Integer>();
         this.rootStack = new Stack<Integer>();
+        this.arcsStack = new Stack<BatchedArcs>();
+        this.batch = batch;
+        this.checkpointer = checkpointer;
+        this.controller = controller;
+        this.restored = restored;
     }
 
     @Override
     public void run() {
-        // Assign a unique integer to this worker or if already assigned set workerId to that.
-        if (workerMap.containsKey(Thread.currentThread().getId())) {
-            this.workerId = workerMap.get(Thread.currentThread().getId());
-        } else {
-            this.workerId = workerCount.incrementAndGet();
-            workerMap.put(Thread.currentThread().getId(), this.workerId);
+        if (checkpointer != null) {
+            checkpointer.enter(restored);
+        }
+        if (controller != null) {
+            controller.enter();
         }
-        // Let the worker make claim on the intial node so that it can start exploring.
-        unionfind.makeClaim(nodeId + 1, workerId);
+        final SCCEvents.WorkerDFS event = new SCCEvents.WorkerDFS();
+        event.begin();
+        try {
+            explore();
+        } finally {
+            event.workerId = this.workerId;
+            event.node = (restored == null) ? this.nodeId : restored.v;
+            event.restored = restored != null;
+            event.commit();
+            freeIds.add(this.workerId);
+            if (controller != null) {
+                controller.exit();
+            }
+            if (checkpointer != null) {
+                checkpointer.exit();
+            }
+        }
+    }
 
+    // explore is the DFS from `nodeId`, or from where the `restored` worker stopped.
+    private void explore() {
         PickStatus picked;
-        // `ei` is the index from where we should start exploring the arcs of the node `vp`.
+        // `ei` is the index of the arc of the node `vp` explored last.
         int v, vp, w, ei, root;
-        int random_ei;
         ClaimStatus claimed;
         // Used to simulate return from a function.
-        boolean backtrack = false;
+        boolean backtrack;
 
-        v = this.nodeId;
+        if (restored == null) {
+            this.workerId = freeIds.poll();
+            // Let the worker make claim on the intial node so that it can start exploring.
+            unionfind.makeClaim(nodeId + 1, workerId);
+            v = this.nodeId;
+            backtrack = false;
+        } else {
+            this.workerId = restored.workerId;
+            v = restored.v;
+            backtrack = restored.backtrack;
+            for (int r: restored.rootStack) {
+                rootStack.push(r);
+            }
+            for (int i = 0; i < restored.recursionStack.length; i += 3) {
+                vp = restored.recursionStack[i];
+                ei = restored.recursionStack[i + 1];
+                recursionStack.push(vp);
+                recursionStack.push(ei);
+                recursionStack.push(restored.recursionStack[i + 2]);
+                // The iterator had returned the arc `ei` when the callee was entered.
+                arcsStack.push(new BatchedArcs(graph.arcs(vp, workerId), unionfind, batch, ei + 1));
+            }
+        }
 
-        List<Integer> arcs = null;
+        BatchedArcs arcs = null;
         START: while (true) {
+            // A safe point for checkpoints and parking, no locks are held here.
+            while (true) {
+                if (checkpointer != null && checkpointer.requested()) {
+                    checkpointer.arrive(state(v, backtrack));
+                }
+                if (controller == null || controller.admit()) {
+                    break;
+                }
+            }
+
             // This indicates a new DFS call in the recursion.
             if (!backtrack) {
                 rootStack.push(v);
@@ -87,12 +173,15 @@ public class SCCWorker implements Runnable {
                     // The listLive element.
                     vp = p.getValue() - 1;
                     // Initially start from starting of list.
-                    ei = 0;
+                    ei = -1;
+                    // Randomized the exploration of node `vp` for different workers.
+                    arcs = new BatchedArcs(graph.arcs(vp, workerId), unionfind, batch, 0);
                 } else {
                     // Restore the recursion state when backtracking.
                     v = recursionStack.pop();
-                    ei = recursionStack.pop() + 1;
+                    ei = recursionStack.pop();
                     vp = recursionStack.pop();
+                    arcs = arcsStack.pop();
                     // Do not backtrack again. We might have to explore further.
                     backtrack = false;
                     // Some other worker can make the node `v` dead.
@@ -103,11 +192,9 @@ public class SCCWorker implements Runnable {
                     }
                 }
 
-                arcs = graph.get(vp).getArcs();
-                for (; ei < arcs.size(); ei++) {
-                    // Randomized the exploration of node `vp` for different workers.
-                    random_ei = (ei + workerId) % arcs.size();
-                    w = arcs.get(random_ei);
+                while (arcs.hasNext()) {
+                    w = arcs.nextInt();
+                    ei = arcs.index();
                     // Self loop.
                     if (w == vp) {
                         continue;
@@ -125,6 +212,7 @@ public class SCCWorker implements Runnable {
                         recursionStack.push(vp);
                         recursionStack.push(ei);
                         recursionStack.push(v);
+                        arcsStack.push(arcs);
                         v = w;
                         continue START;
                     } else {
@@ -156,4 +244,17 @@ public class SCCWorker implements Runnable {
         }
     }
 
+    // state returns the state of this worker at the top of the `START` loop.
+    private Checkpointer.WorkerState state(final int v, final boolean backtrack) {
+        final int[] roots = new int[rootStack.size()];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = rootStack.get(i);
+        }
+        final int[] recursion = new int[recursionStack.size()];
+        for (int i = 0; i < recursion.length; i++) {
+            recursion[i] = recursionStack.get(i);
+        }
+        return new Checkpointer.WorkerState(workerId, v, backtrack, roots, recursion);
+    }
+
 }
@@ -0,0 +1,95 @@
+package tarjanUF;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+// SequentialTarjan is an iterative version of Tarjan's sequential algorithm on plain arrays.
+// It avoids the atomics, locks and bitsets of the concurrent algorithm, which only cost
+// time when there is a single thread or the graph is too small to be worth sharing.
+public class SequentialTarjan {
+
+    private final DirectedGraph graph;
+    // index[v] is the DFS preorder number of `v` plus one, 0 if `v` is not discovered yet.
+    private final int[] index;
+    // low[v] is the smallest index of a node on the tarjanStack reachable from `v`.
+    private final int[] low;
+    // The so called tarjanStack, with onStack[v] telling whether `v` is on it.
+    private final int[] tarjanStack;
+    private final boolean[] onStack;
+    // Used to eliminate recursion: the node and the iterator over its arcs for every call.
+    private final int[] callNode;
+    private final PrimitiveIterator.OfInt[] callArcs;
+
+    // Constructor.
+    public SequentialTarjan(final DirectedGraph graph) {
+        final int n = graph.N();
+        this.graph = graph;
+        this.index = new int[n];
+        this.low = new int[n];
+        this.tarjanStack = new int[n];
+        this.onStack = new boolean[n];
+        this.callNode = new int[n];
+        this.callArcs = new PrimitiveIterator.OfInt[n];
+    }
+
+    // run finds the SCCs of all nodes reachable from `initNodes` and records them in `unionfind`.
+    public void run(final List<Integer> initNodes, final UF unionfind) {
+        int counter = 0;
+        int top = 0;
+
+        for (int init: initNodes) {
+            if (index[init] != 0) {
+                continue;
+            }
+
+            int depth = 0;
+            callNode[0] = init;
+            callArcs[0] = graph.arcs(init, 0);
+            index[init] = low[init] = ++counter;
+            tarjanStack[top++] = init;
+            onStack[init] = true;
+
+            while (depth >= 0) {
+                final int v = callNode[depth];
+                final PrimitiveIterator.OfInt arcs = callArcs[depth];
+
+                if (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (index[w] == 0) {
+                        // Descend into `w`.
+                        depth++;
+                        callNode[depth] = w;
+                        callArcs[depth] = graph.arcs(w, 0);
+                        index[w] = low[w] = ++counter;
+                        tarjanStack[top++] = w;
+                        onStack[w] = true;
+                    } else if (onStack[w] && index[w] < low[v]) {
+                        low[v] = index[w];
+                    }
+                    continue;
+                }
+
+                // All arcs of `v` are done. If `v` is a root, pop its SCC.
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = tarjanStack[--top];
+                        onStack[w] = false;
+                        unionfind.assignSCC(w + 1, v + 1);
+                    } while (w != v);
+                }
+
+                // Return to the caller.
+                callArcs[depth] = null;
+                depth--;
+                if (depth >= 0) {
+                    final int u = callNode[depth];
+                    if (low[v] < low[u]) {
+                        low[u] = low[v];
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// SpinPolicy decides how a worker waits at the spin sites of `UF`, i.e. when it retries
+// taking a lock or waits for a node to be unlocked by another worker. Busy spinning is the
+// fastest as long as every worker has a core of its own, but on an oversubscribed host it
+// keeps the lock holder from running. The time spent waiting is counted once per wait by the
+// spin sites, so the instrumentation stays out of the iterations.
+public class SpinPolicy {
+
+    // Kind selects how a waiting worker spends an iteration:
+    // 1. spin:
+    //      Busy spins, hinting the processor with `Thread.onSpinWait`.
+    // 2. yield:
+    //      Spins for `spins` iterations, then yields the processor on every further one.
+    // 3. backoff:
+    //      Spins for a number of hints which doubles with every iteration, up to 2^MAX_SHIFT.
+    // 4. park:
+    //      Spins for `spins` iterations, then parks the thread for a time which doubles with
+    //      every further iteration, up to MAX_PARK nanoseconds.
+    public enum Kind {
+        spin, yield, backoff, park;
+    };
+
+    private static final int MAX_SHIFT = 10;
+    private static final long MIN_PARK = 1000;
+    private static final long MAX_PARK = 1000000;
+
+    private final Kind kind;
+    private final int spins;
+    // Number of iterations waited and nanoseconds spent in the waits.
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    // Constructor.
+    // The default policy busy spins.
+    public SpinPolicy() {
+        this(Kind.spin, 100);
+    }
+
+    // Constructor.
+    // `spins` is the number of iterations busy spun before yielding or parking.
+    public SpinPolicy(final Kind kind, final int spins) {
+        this.kind = kind;
+        this.spins = spins;
+    }
+
+    // pause waits once at a spin site, `iteration` being the number of times the caller
+    // already waited for the same condition. Returns the next iteration. The caller takes the
+    // time before the first iteration and passes it to `waited` once the wait is over.
+    public int pause(final int iteration) {
+        switch (this.kind) {
+            case spin:
+                Thread.onSpinWait();
+                break;
+            case yield:
+                if (iteration < this.spins) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                break;
+            case backoff:
+                for (int i = 1 << Math.min(iteration, MAX_SHIFT); i > 0; i--) {
+                    Thread.onSpinWait();
+                }
+                break;
+            case park:
+                if (iteration < this.spins) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(Math.min(MAX_PARK, MIN_PARK << Math.min(iteration - this.spins, MAX_SHIFT)));
+                }
+                break;
+        }
+        return iteration + 1;
+    }
+
+    // waited counts a wait of `iterations` calls of `pause` which started at `since`, as
+    // taken by `System.nanoTime`. A wait without any iteration is not counted.
+    public void waited(final int iterations, final long since) {
+        if (iterations > 0) {
+            this.iterations.add(iterations);
+            this.nanos.add(System.nanoTime() - since);
+        }
+    }
+
+    // iterations returns the number of times `pause` was called.
+    public long iterations() {
+        return this.iterations.sum();
+    }
+
+    // nanos returns the time spent waiting in nanoseconds.
+    public long nanos() {
+        return this.nanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return this.kind + ((this.kind == Kind.yield || this.kind == Kind.park) ? " after " + this.spins + " spins" : "");
+    }
+
+}
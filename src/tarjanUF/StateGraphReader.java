@@ -0,0 +1,281 @@
+package tarjanUF;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// StateGraphReader imports the state graphs dumped by model checkers in a single pass over
+// the file. The states are numbered [0..n - 1] in the order they first occur, through a
+// `LongIntMap` from their identifiers in the dump, so neither `divineParser/augment` nor any
+// intermediate file is needed. The arcs are passed to an `ArcSink` as they are read, which
+// builds a `Graph` or writes an edge list.
+public class StateGraphReader {
+
+    // Format is the format of a state graph dump:
+    // 1. dot:
+    //      The DOT file written by `tlc -dump dot <file>`. States are identified by their
+    //      fingerprints, the initial states are those with `style = filled`.
+    // 2. aut:
+    //      The Aldebaran format written by the LTSmin tools for `.aut` outputs, e.g. by
+    //      `ltsmin-convert model.gcf model.aut`. The header `des (initial, arcs, states)`
+    //      names the initial state.
+    public enum Format {
+        dot, aut;
+    };
+
+    // ArcSink receives the arcs of the state graph with the states numbered densely.
+    public interface ArcSink {
+        void arc(int from, int to) throws IOException;
+    }
+
+    private final Format format;
+    private final LongIntMap ids = new LongIntMap(1 << 16);
+    private final List<Integer> initNodes = new ArrayList<Integer>();
+    private long arcs;
+
+    // The current line of the input, without its line break.
+    private byte[] line = new byte[256];
+    private int length;
+    // The position of the parser in `line`.
+    private int position;
+    private final byte[] buffer = new byte[1 << 16];
+    private int size;
+    private int next;
+
+    // Constructor.
+    public StateGraphReader(final Format format) {
+        this.format = format;
+    }
+
+    // readGraph reads the state graph in `filename` into a new graph.
+    public Graph readGraph(final String filename) throws IOException {
+        final long start = System.nanoTime();
+        final SCCEvents.InputLoad event = new SCCEvents.InputLoad();
+        event.begin();
+        final Graph graph = new Graph(filename);
+        this.read(filename, (from, to) -> {
+            if (!graph.hasNode(from)) {
+                graph.addNode(new GraphNode(from));
+            }
+            graph.addArc(from, to);
+            if (!graph.hasNode(to)) {
+                graph.addNode(new GraphNode(to));
+            }
+        });
+        // States without any arc, e.g. a single initial state.
+        for (int v = 0; v < this.ids.size(); v++) {
+            if (!graph.hasNode(v)) {
+                graph.addNode(new GraphNode(v));
+            }
+        }
+        event.graph = filename;
+        event.nodes = graph.N();
+        event.commit();
+        System.err.println("Runtime for input: " + (System.nanoTime() - start));
+        return graph;
+    }
+
+    // initNodes returns the initial states of the state graph read.
+    public List<Integer> initNodes() {
+        return this.initNodes;
+    }
+
+    // states returns the number of states read.
+    public int states() {
+        return this.ids.size();
+    }
+
+    // arcs returns the number of arcs read.
+    public long arcs() {
+        return this.arcs;
+    }
+
+    // read streams the state graph in `filename` to `sink`.
+    public void read(final String filename, final ArcSink sink) throws IOException {
+        try (InputStream in = new FileInputStream(filename)) {
+            this.size = 0;
+            this.next = 0;
+            int lineNumber = 0;
+            while (this.readLine(in)) {
+                lineNumber++;
+                this.position = 0;
+                try {
+                    if (this.format == Format.dot) {
+                        this.parseDot(sink);
+                    } else {
+                        this.parseAut(sink, lineNumber == 1);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException(filename + ": cannot parse line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // parseDot handles a line of a DOT dump. Only the lines which start with a state are of
+    // interest, they either define the state or an arc `from -> to`.
+    private void parseDot(final ArcSink sink) throws IOException {
+        this.skipSpaces();
+        if (this.position == this.length || !this.isNumber(this.line[this.position])) {
+            return;
+        }
+        final int from = this.id(this.parseLong());
+        this.skipSpaces();
+        if (this.position + 1 < this.length && this.line[this.position] == '-' && this.line[this.position + 1] == '>') {
+            this.position += 2;
+            this.skipSpaces();
+            final int to = this.id(this.parseLong());
+            sink.arc(from, to);
+            this.arcs++;
+        } else if (this.contains("style = filled")) {
+            this.initNodes.add(from);
+        }
+    }
+
+    // parseAut handles a line of an Aldebaran file: the header or an arc (from, label, to).
+    // The label may be quoted and contain commas, so the target is the number after the
+    // last comma.
+    private void parseAut(final ArcSink sink, final boolean header) throws IOException {
+        this.skipSpaces();
+        if (this.position == this.length) {
+            return;
+        }
+        if (header) {
+            if (!this.contains("des")) {
+                throw new NumberFormatException("missing the des header");
+            }
+            while (this.position < this.length && this.line[this.position] != '(') {
+                this.position++;
+            }
+            this.position++;
+            this.skipSpaces();
+            this.initNodes.add(this.id(this.parseLong()));
+            return;
+        }
+        if (this.line[this.position] != '(') {
+            throw new NumberFormatException("an arc has to start with '('");
+        }
+        this.position++;
+        this.skipSpaces();
+        final int from = this.id(this.parseLong());
+        int comma = this.length - 1;
+        while (comma > this.position && this.line[comma] != ',') {
+            comma--;
+        }
+        this.position = comma + 1;
+        this.skipSpaces();
+        final int to = this.id(this.parseLong());
+        sink.arc(from, to);
+        this.arcs++;
+    }
+
+    // id returns the node of the state `key`, numbering it if it is new.
+    private int id(final long key) {
+        return this.ids.putIfAbsent(key, this.ids.size());
+    }
+
+    private boolean isNumber(final byte c) {
+        return (c >= '0' && c <= '9') || c == '-';
+    }
+
+    private void skipSpaces() {
+        while (this.position < this.length && (this.line[this.position] == ' ' || this.line[this.position] == '\t')) {
+            this.position++;
+        }
+    }
+
+    private long parseLong() {
+        boolean negative = false;
+        if (this.position < this.length && this.line[this.position] == '-') {
+            negative = true;
+            this.position++;
+        }
+        final int first = this.position;
+        long value = 0;
+        while (this.position < this.length && this.line[this.position] >= '0' && this.line[this.position] <= '9') {
+            value = value * 10 + (this.line[this.position++] - '0');
+        }
+        if (this.position == first) {
+            throw new NumberFormatException("expected a number at column " + (first + 1));
+        }
+        return negative ? -value : value;
+    }
+
+    // contains checks if the rest of the line contains `word`.
+    private boolean contains(final String word) {
+        outer:
+        for (int i = this.position; i + word.length() <= this.length; i++) {
+            for (int j = 0; j < word.length(); j++) {
+                if (this.line[i + j] != word.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // readLine reads the next line into `line`. Returns false at the end of the input.
+    private boolean readLine(final InputStream in) throws IOException {
+        this.length = 0;
+        while (true) {
+            if (this.next == this.size) {
+                this.size = in.read(this.buffer);
+                this.next = 0;
+                if (this.size <= 0) {
+                    this.size = 0;
+                    return this.length > 0;
+                }
+            }
+            final byte c = this.buffer[this.next++];
+            if (c == '\n') {
+                return true;
+            }
+            if (c == '\r') {
+                continue;
+            }
+            if (this.length == this.line.length) {
+                this.line = Arrays.copyOf(this.line, 2 * this.length);
+            }
+            this.line[this.length++] = c;
+        }
+    }
+
+    public static void main(String[] args) {
+        // The tool requires 3 parameters in its input.
+        // 1. The state graph dump.
+        // 2. Its format, dot or aut.
+        // 3. The edge list to be written. The initial states are written to <file>.init.
+        // The edge list can be read by all tools, e.g. converted by `ExternalGraph`.
+        assert args.length >= 3;
+        final long start = System.nanoTime();
+        final StateGraphReader reader = new StateGraphReader(Format.valueOf(args[1]));
+        try {
+            try (Writer out = new BufferedWriter(new FileWriter(args[2]), 1 << 16)) {
+                reader.read(args[0], (from, to) -> {
+                    out.write(Integer.toString(from));
+                    out.write(' ');
+                    out.write(Integer.toString(to));
+                    out.write('\n');
+                });
+            }
+            try (Writer out = new BufferedWriter(new FileWriter(args[2] + ".init"))) {
+                for (int v: reader.initNodes()) {
+                    out.write(v + "\n");
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+        System.err.println("Converted " + reader.states() + " states and " + reader.arcs() + " arcs.");
+        System.err.println("Runtime for conversion: " + (System.nanoTime() - start));
+    }
+
+}
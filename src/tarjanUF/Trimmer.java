@@ -0,0 +1,136 @@
+package tarjanUF;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Stack;
+
+public class Trimmer {
+
+    private final DirectedGraph graph;
+    private final ReverseIndex reverse;
+    private final UF unionfind;
+    // Number of arcs from/to nodes which have not been trimmed yet. Self loops are not counted.
+    private final AtomicIntegerArray inDegree;
+    private final AtomicIntegerArray outDegree;
+    // trimmed has bit `i` set once node `i` has been removed by some thread.
+    private final ConcurrentBitSet trimmed;
+    // seeded has bit `i` set if node `i` is the successor of a trimmed node. Such a node
+    // might only have been reachable through trimmed nodes and must be a DFS root.
+    private final ConcurrentBitSet seeded;
+    // Number of nodes trimmed so far.
+    private final AtomicInteger count;
+
+    // Constructor.
+    public Trimmer(final DirectedGraph graph, final ReverseIndex reverse, final UF unionfind) {
+        final int n = graph.N();
+        this.graph = graph;
+        this.reverse = reverse;
+        this.unionfind = unionfind;
+        this.inDegree = new AtomicIntegerArray(n);
+        this.outDegree = new AtomicIntegerArray(n);
+        this.trimmed = new ConcurrentBitSet(n);
+        this.seeded = new ConcurrentBitSet(n);
+        this.count = new AtomicInteger(0);
+    }
+
+    // trim repeatedly removes nodes without a live predecessor or without a live successor
+    // until no such node is left. Every such node is an SCC on its own and is marked dead
+    // in the union find structure so that the SCC workers never claim it.
+    // Returns the number of nodes removed.
+    public int trim(final int numCores) {
+        final int n = graph.N();
+
+        // Initialize the degree counters.
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            for (int v = from; v < to; v++) {
+                int out = 0;
+                final PrimitiveIterator.OfInt arcs = graph.arcs(v, 0);
+                while (arcs.hasNext()) {
+                    final int w = arcs.nextInt();
+                    if (w != v) {
+                        out++;
+                    }
+                }
+                outDegree.set(v, out);
+                inDegree.set(v, reverse.inDegree(v));
+            }
+        });
+
+        // Every thread seeds a worklist from its chunk and then trims transitively
+        // from there. A node whose counter drops to 0 is removed by the thread which
+        // made it drop, so the fix point is reached once all threads are done.
+        Parallel.forChunks(n, numCores, (from, to) -> {
+            final Stack<Integer> worklist = new Stack<Integer>();
+            for (int v = from; v < to; v++) {
+                if ((inDegree.get(v) == 0 || outDegree.get(v) == 0) && trimmed.compareAndSet(v, false, true)) {
+                    worklist.push(v);
+                }
+            }
+            while (!worklist.isEmpty()) {
+                remove(worklist.pop(), worklist);
+            }
+        });
+
+        return count.get();
+    }
+
+    // isTrimmed returns true if node `v` has been removed by `trim`.
+    public boolean isTrimmed(final int v) {
+        return trimmed.get(v);
+    }
+
+    // seeds returns the nodes from which the search has to start after trimming, i.e. the
+    // given initial nodes and the successors of trimmed nodes. Every node is returned once
+    // and only if it is neither visited nor dead, so trimmed nodes are left out.
+    public List<Integer> seeds(final List<Integer> initNodes) {
+        final List<Integer> seeds = new ArrayList<Integer>();
+        final BitSet taken = new BitSet(graph.N());
+        for (int v: initNodes) {
+            addSeed(v, taken, seeds);
+        }
+        for (int v = 0; v < graph.N(); v++) {
+            if (seeded.get(v)) {
+                addSeed(v, taken, seeds);
+            }
+        }
+        return seeds;
+    }
+
+    // addSeed appends `v` to `seeds` unless it is taken already, visited or dead.
+    private void addSeed(final int v, final BitSet taken, final List<Integer> seeds) {
+        if (taken.get(v) || unionfind.visited.get(v) || unionfind.isDead(v + 1)) {
+            return;
+        }
+        taken.set(v);
+        seeds.add(v);
+    }
+
+    // remove marks `v` dead and pushes its neighbours which thereby become trimmable.
+    private void remove(final int v, final Stack<Integer> worklist) {
+        unionfind.markTrivial(v + 1);
+        count.incrementAndGet();
+
+        final PrimitiveIterator.OfInt arcs = graph.arcs(v, 0);
+        while (arcs.hasNext()) {
+            final int w = arcs.nextInt();
+            if (w == v) {
+                continue;
+            }
+            seeded.set(w);
+            if (inDegree.decrementAndGet(w) == 0 && trimmed.compareAndSet(w, false, true)) {
+                worklist.push(w);
+            }
+        }
+        for (int i = 0; i < reverse.inDegree(v); i++) {
+            int u = reverse.predecessor(v, i);
+            if (outDegree.decrementAndGet(u) == 0 && trimmed.compareAndSet(u, false, true)) {
+                worklist.push(u);
+            }
+        }
+    }
+
+}
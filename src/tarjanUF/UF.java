@@ -1,15 +1,43 @@
 package tarjanUF;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.FlightRecorder;
 
 import tarjanUF.UFNode.ListStatus;
 import tarjanUF.UFNode.UFStatus;
 
 public class UF {
 
-    private List<UFNode> list;
-    public final List<Boolean> visited;
+    // Tell whether the events are enabled in a running recording, without creating an
+    // event on every death or wait.
+    private static final SCCEvents.SCCDeath DEATH = new SCCEvents.SCCDeath();
+    private static final SCCEvents.LockSpin LOCK_SPIN = new SCCEvents.LockSpin();
+
+    private final UFNode[] list;
+    // visited tells the nodes which have been fully explored, indexed by node - 1.
+    public final ConcurrentBitSet visited;
+    // contention counts failed lock attempts and iterations spent waiting on a lock.
+    public final LongAdder contention = new LongAdder();
+    // progress counts the nodes fully explored, i.e. removed from their list.
+    public final LongAdder progress = new LongAdder();
+    // deaths counts the SCCs marked dead by `markDead`.
+    public final LongAdder deaths = new LongAdder();
+    // spinPolicy decides how to wait for a lock held by another worker.
+    private SpinPolicy spinPolicy = new SpinPolicy();
+    // The size and the time of the first claim of every set for the `SCCEvents.SCCDeath`
+    // events, kept at the roots. They are kept whenever Flight Recorder is available, so
+    // that a recording started during the search still records the sizes. Null otherwise.
+    private final AtomicIntegerArray sizes;
+    private final AtomicLongArray born;
+    // The stream and the reclaimer told about every SCC marked dead, null if none. While
+    // there is one, the members of every set are kept in a second cyclic list which, unlike
+    // the list of live nodes, never drops a node, so that the members of a dead SCC can be
+    // enumerated.
+    private SCCStream stream;
+    private Reclaimer reclaimer;
+    private AtomicIntegerArray members;
 
     // ClaimStatus is used to denote the return value of `makeClaim`
     // where a worker tries to claim rights on a node.
@@ -36,25 +64,150 @@ public class UF {
         pickSuccess, pickDead;
     };
 
+    // LinkPolicy decides which of two roots becomes the parent of the other in `unite`.
+    // Both are fixed total orders of the nodes. `sameSet` relies on this, and it keeps two
+    // workers from linking two roots under each other while only the child is locked.
+    // 1. index:
+    //      The root with the higher index becomes the parent. Where the ids follow the order
+    //      in which the nodes are discovered, this builds deep trees.
+    // 2. random:
+    //      The root with the higher priority becomes the parent, the priorities being a
+    //      fixed pseudo random permutation of the nodes. Keeps the trees shallow whatever
+    //      the order of the ids.
+    public enum LinkPolicy {
+        index, random;
+    };
+
+    private final LinkPolicy linkPolicy;
+
     // Constructor.
     // Initializes a list of UFNodes required.
-    // Also maintains a boolean list to know which nodes to avoid for DFS root.
+    // Also maintains a bitset to know which nodes to avoid for DFS root.
     public UF(int n) {
-        this.list = new ArrayList<UFNode>(n);
-        this.visited = new ArrayList<Boolean>(n);
-        for (int i = 0; i < n; i++) {
-            this.visited.add(false);
-            this.list.add(new UFNode());
+        this(n, 1);
+    }
+
+    // Constructor.
+    // Allocates the nodes in parallel chunks on `numCores` threads, so that the structure of
+    // a large graph is not built by a single thread before the search can start.
+    public UF(int n, int numCores) {
+        this(n, numCores, LinkPolicy.index);
+    }
+
+    // Constructor.
+    // Links the roots in `unite` by `linkPolicy`.
+    public UF(int n, int numCores, LinkPolicy linkPolicy) {
+        this.linkPolicy = linkPolicy;
+        final SCCEvents.UFConstruction event = new SCCEvents.UFConstruction();
+        event.begin();
+        this.list = new UFNode[n];
+        this.visited = new ConcurrentBitSet(Math.max(1, n));
+        final boolean statistics = FlightRecorder.isAvailable();
+        this.sizes = statistics ? new AtomicIntegerArray(n) : null;
+        this.born = statistics ? new AtomicLongArray(n) : null;
+        final Parallel.Chunk init = (from, to) -> {
+            for (int i = from; i < to; i++) {
+                this.list[i] = new UFNode();
+                if (statistics) {
+                    this.sizes.set(i, 1);
+                }
+            }
+        };
+        if (numCores > 1) {
+            Parallel.forChunks(n, numCores, init);
+        } else {
+            init.run(0, n);
+        }
+        event.nodes = n - 1;
+        event.commit();
+    }
+
+    // linkPolicy returns how the roots are linked in `unite`.
+    public LinkPolicy linkPolicy() {
+        return this.linkPolicy;
+    }
+
+    // below checks if "node a" is linked below "node b" should both be roots.
+    private boolean below(int a, int b) {
+        if (this.linkPolicy == LinkPolicy.index) {
+            return a < b;
+        }
+        return priority(a) < priority(b);
+    }
+
+    // priority returns the priority of "node a" in the random policy. The steps of the
+    // finalizer of MurmurHash3 are invertible, so no two nodes have the same priority.
+    private static int priority(int a) {
+        int h = a * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // setSpinPolicy sets how workers wait at the spin sites of this structure.
+    public void setSpinPolicy(SpinPolicy spinPolicy) {
+        this.spinPolicy = spinPolicy;
+    }
+
+    // spinPolicy returns how workers wait at the spin sites of this structure.
+    public SpinPolicy spinPolicy() {
+        return this.spinPolicy;
+    }
+
+    // setStream makes this structure tell `stream` about every SCC marked dead. It is to be
+    // called before the search starts.
+    public void setStream(SCCStream stream) {
+        this.stream = stream;
+        this.keepMembers();
+    }
+
+    // setReclaimer makes this structure tell `reclaimer` about every SCC marked dead. It is
+    // to be called before the search starts.
+    public void setReclaimer(Reclaimer reclaimer) {
+        this.reclaimer = reclaimer;
+        this.keepMembers();
+    }
+
+    // keepMembers starts keeping the cyclic member lists read by `nextMember`.
+    private void keepMembers() {
+        if (this.members == null) {
+            this.members = new AtomicIntegerArray(this.list.length);
+        }
+    }
+
+    // nextMember returns the node after "node a" in the cyclic member list of its set.
+    public int nextMember(int a) {
+        final int next = this.members.get(a);
+        return (next == 0) ? a : next;
+    }
+
+    // flushDeaths passes the SCCs marked dead by the calling thread on to the stream.
+    public void flushDeaths() {
+        if (this.stream != null) {
+            this.stream.flush();
         }
     }
 
+    // size returns the number of nodes including the unused node 0.
+    public int size() {
+        return this.list.length;
+    }
+
+    // node returns the union find node of "node a".
+    public UFNode node(int a) {
+        return this.list[a];
+    }
+
     /********* Union find Operations ****************/
 
     // find is used to find the root of the union find tree
     // in which the node belongs. It uses path compression
     // as an optimization technique.
     public int find(int nodeId) {
-        UFNode node = this.list.get(nodeId);
+        UFNode node = this.list[nodeId];
         int parent = node.parent();
 
         // The node is itself a root in the union find tree.
@@ -85,22 +238,22 @@ public class UF {
             return true;
         }
 
-        // We are taking higher indexed node as root during linking.
-        // Since rb was already a root and a is a higher index then if the parent
+        // We are taking the node higher in the order of the link policy as root during
+        // linking. Since rb was already a root and a is higher then if the parent
         // for rb has not changed/ rb is still a root then they cannot be in the sameset.
-        if (rb < a) {
-            if (this.list.get(rb).parent() == 0) {
+        if (this.below(rb, a)) {
+            if (this.list[rb].parent() == 0) {
                 return false;
             }
         }
 
         // We will arrive here because of the following situations:
-        // 1. a < rb: Again since higher index is a root
+        // 1. a below rb: Again since the higher node is a root
         //      we cannot have them in the same tree as rb is also a root not equal to a.
-        // 2. rb < a and rb's parent was changed.
+        // 2. rb below a and rb's parent was changed.
         //      If rb's parent was changed for a and b to be in the same tree a's parent should also change.
         //      This is not the case if a's parent in null/0.
-        if (this.list.get(a).parent() == 0) {
+        if (this.list[a].parent() == 0) {
             return false;
         }
 
@@ -132,7 +285,10 @@ public class UF {
         //      returns -1 if the entire list is dead.
         int ra, rb, la, lb, na, nb;
         int Q, R;
-        ConcurrentBitSet workerQ, workerR;
+        int spins = 0;
+        long waitStart = 0;
+        // Created once the lock on Q is not obtained at the first attempt, if the event is enabled.
+        SCCEvents.LockSpin spin = null;
 
         while (true) {
             // Find roots of the union tree.
@@ -141,11 +297,12 @@ public class UF {
 
             // No need to unite.
             if (ra == rb) {
+                this.spinPolicy.waited(spins, waitStart);
                 return;
             }
 
-            // Take highest index node as a root.
-            if (ra < rb) {
+            // Take the higher node in the order of the link policy as a root.
+            if (this.below(ra, rb)) {
                 R = rb;
                 Q = ra;
             } else {
@@ -155,10 +312,26 @@ public class UF {
 
             // Else try to obtain a lock on the node Q, that is whose parent is to be set.
             if (!this.lockUF(Q)) {
+                if (spins == 0) {
+                    waitStart = System.nanoTime();
+                    if (LOCK_SPIN.isEnabled()) {
+                        spin = new SCCEvents.LockSpin();
+                        spin.begin();
+                    }
+                }
+                this.contention.increment();
+                spins = this.spinPolicy.pause(spins);
                 continue;
             }
             break;
         }
+        this.spinPolicy.waited(spins, waitStart);
+        if (spin != null) {
+            spin.lock = "lockUF";
+            spin.node = Q - 1;
+            spin.spins = spins;
+            spin.commit();
+        }
         // Now we have a lock on Q. We need to unlock Q before returning from function.
 
         // Obtain a lock on a's list.
@@ -177,8 +350,8 @@ public class UF {
             return;
         }
 
-        na = this.list.get(la).listNext();
-        nb = this.list.get(lb).listNext();
+        na = this.list[la].listNext();
+        nb = this.list[lb].listNext();
 
         // Handle 1 element sets.
         if (na == 0) {
@@ -189,21 +362,30 @@ public class UF {
         }
 
         // Merge the two lists in O(1) as described in the ASCII art above.
-        UFNode.listNextUpdater.set(this.list.get(la), nb);
-        UFNode.listNextUpdater.set(this.list.get(lb), na);
+        UFNode.listNextUpdater.set(this.list[la], nb);
+        UFNode.listNextUpdater.set(this.list[lb], na);
+        if (this.members != null) {
+            // Merge the member lists the same way at the locked nodes.
+            final int ma = this.nextMember(la);
+            final int mb = this.nextMember(lb);
+            this.members.set(la, mb);
+            this.members.set(lb, ma);
+        }
 
-        UFNode.parentUpdater.set(this.list.get(Q), R);
+        UFNode.parentUpdater.set(this.list[Q], R);
+        if (this.sizes != null) {
+            this.moveStatistics(Q, R);
+        }
 
         // We also need to merge the worker sets.
-        workerQ = this.list.get(Q).workerSet;
-        workerR = this.list.get(R).workerSet;
+        final UFNode nodeQ = this.list[Q];
 
         // An iterative version to "or" the two worker sets in case of race conditions.
-        if (!ConcurrentBitSet.equals(ConcurrentBitSet.getOr(workerQ, workerR), workerR)) {
-            this.list.get(R).workerSet.or(workerQ);
-            while (this.list.get(R).parent() != 0) {
+        if (!this.list[R].hasWorkers(nodeQ)) {
+            this.list[R].addWorkers(nodeQ);
+            while (this.list[R].parent() != 0) {
                 R = this.find(R);
-                this.list.get(R).workerSet.or(workerQ);
+                this.list[R].addWorkers(nodeQ);
             }
         }
 
@@ -219,7 +401,7 @@ public class UF {
 
     // inList returns true if node a is to be/has been removed from its list.
     public boolean inList(int a) {
-        return (this.list.get(a).listStatus() != ListStatus.listTomb);
+        return (this.list[a].listStatus() != ListStatus.listTomb);
     }
 
     // pickFromList returns the index of the first live element in the cyclic list
@@ -230,23 +412,33 @@ public class UF {
         int a, b, c;
         int ret;
         ListStatus statusA, statusB;
+        int spins;
+        long waitStart = 0;
         a = state;
 
         // This loop will terminate as either the length of list is reduced in each iteration
         // or an listLive element is returned from the list.
         while(true) {
             // Loop until state of `a` is not locked.
+            spins = 0;
             while (true) {
-                statusA = this.list.get(a).listStatus();
+                statusA = this.list[a].listStatus();
 
                 if (statusA == ListStatus.listLive) {
+                    this.spinPolicy.waited(spins, waitStart);
                     return (new Pair<PickStatus, Integer>(PickStatus.pickSuccess, a));
                 } else if (statusA == ListStatus.listTomb) {
                     break;
                 }
+                if (spins == 0) {
+                    waitStart = System.nanoTime();
+                }
+                this.contention.increment();
+                spins = this.spinPolicy.pause(spins);
             }
+            this.spinPolicy.waited(spins, waitStart);
 
-            b = this.list.get(a).listNext();
+            b = this.list[a].listNext();
             if (a == b || b == 0) {
                 // Mark the SCC to be dead if a is a listTomb and SCC is dead.
                 markDead(a);
@@ -254,21 +446,29 @@ public class UF {
             }
 
             // Loop until state of `b` is not locked.
+            spins = 0;
             while (true) {
-                statusB = this.list.get(b).listStatus();
+                statusB = this.list[b].listStatus();
 
                 if (statusB == ListStatus.listLive) {
+                    this.spinPolicy.waited(spins, waitStart);
                     return (new Pair<PickStatus, Integer>(PickStatus.pickSuccess, b));
                 } else if (statusB == ListStatus.listTomb) {
                     break;
                 }
+                if (spins == 0) {
+                    waitStart = System.nanoTime();
+                }
+                this.contention.increment();
+                spins = this.spinPolicy.pause(spins);
             }
+            this.spinPolicy.waited(spins, waitStart);
             // a and b are both listTomb here on.
-            c = this.list.get(b).listNext();
+            c = this.list[b].listNext();
 
             // Shorten the list by removing b from the list.
-            if (this.list.get(a).listNext() == b) {
-                UFNode.listNextUpdater.set(this.list.get(a), c);
+            if (this.list[a].listNext() == b) {
+                UFNode.listNextUpdater.set(this.list[a], c);
             }
 
             // Now iterate for c to get a listLive element/shorten the list.
@@ -279,21 +479,31 @@ public class UF {
     // removeFromList basically marks the "node a" to be a listTomb.
     public boolean removeFromList(int a) {
         ListStatus statusA;
+        int spins = 0;
+        long waitStart = 0;
 
         // Loop until this worker changes the "node a" to be a listTomb
         // or is changed by some other node.
         while (true) {
-            statusA = this.list.get(a).listStatus();
+            statusA = this.list[a].listStatus();
             if (statusA == ListStatus.listLive) {
-                if (UFNode.listStatusUpdater.compareAndSet(this.list.get(a), ListStatus.listLive, ListStatus.listTomb)) {
+                if (UFNode.listStatusUpdater.compareAndSet(this.list[a], ListStatus.listLive, ListStatus.listTomb)) {
+                    this.spinPolicy.waited(spins, waitStart);
                     // Once "node a" is dead it can be visited globally so no other
                     // DFS routine is started from this node.
                     this.visited.set(a - 1, true);
+                    this.progress.increment();
                     return true;
                 }
             } else if (statusA == ListStatus.listTomb) {
+                this.spinPolicy.waited(spins, waitStart);
                 return false;
             }
+            if (spins == 0) {
+                waitStart = System.nanoTime();
+            }
+            this.contention.increment();
+            spins = this.spinPolicy.pause(spins);
         }
     }
 
@@ -301,12 +511,9 @@ public class UF {
 
     // makeClaim tries to make worker get a claim on nodeId.
     public ClaimStatus makeClaim(int nodeId, int worker) {
-        ConcurrentBitSet workerId = new ConcurrentBitSet(UFNode.workerCount);
-        // Find the bitmask of the worker.
-        workerId.set(worker - 1, true);
         // root contains the latests workerSet of the tree.
         int rootId = this.find(nodeId);
-        UFNode root = this.list.get(rootId);
+        UFNode root = this.list[rootId];
 
         // If root is dead then tree is dead and hence
         // no claim is required.
@@ -315,19 +522,22 @@ public class UF {
         }
 
         // Check if the root is already present in the worker's tarjanStack.
-        // This can be checked by a simple "and".
-        if (!ConcurrentBitSet.getAnd(root.workerSet, workerId).isEmpty()) {
+        if (root.hasWorker(worker)) {
             return ClaimStatus.claimFound;
         }
 
         // Else worker makes a claim on the node.
-        root.workerSet.or(workerId);
+        root.addWorker(worker);
         // Handle the race conditions, i.e., root of the tree might have changed.
         while (root.parent() != 0) {
-            root = this.list.get(this.find(rootId));
-            root.workerSet.or(workerId);
+            this.contention.increment();
+            root = this.list[this.find(rootId)];
+            root.addWorker(worker);
         }
         // A successful claim is now obtained.
+        if (this.born != null && this.born.get(nodeId) == 0) {
+            this.born.compareAndSet(nodeId, 0, System.nanoTime());
+        }
         return ClaimStatus.claimSuccess;
     }
 
@@ -336,7 +546,7 @@ public class UF {
     // isDead returns true if the tree of "node a" is dead.
     public boolean isDead(int a) {
         int ra = this.find(a);
-        return (this.list.get(ra).ufStatus() == UFStatus.UFdead);
+        return (this.list[ra].ufStatus() == UFStatus.UFdead);
     }
 
     // markDead makes the "ndoe a" UFdead.
@@ -344,32 +554,105 @@ public class UF {
         // Was this worker successful in making "node a" dead?
         boolean result = false;
         int ra = this.find(a);
-        UFStatus stat = this.list.get(ra).ufStatus();
+        UFStatus stat = this.list[ra].ufStatus();
+        int spins = 0;
+        long waitStart = 0;
 
         // Loop until this worker makes the node dead
         // or some other worker marks it to be dead.
         while (stat != UFStatus.UFdead) {
             if (stat == UFStatus.UFlive) {
-                result = UFNode.ufStatusUpdater.compareAndSet(this.list.get(ra), UFStatus.UFlive, UFStatus.UFdead);
+                result = UFNode.ufStatusUpdater.compareAndSet(this.list[ra], UFStatus.UFlive, UFStatus.UFdead);
+            } else {
+                if (spins == 0) {
+                    waitStart = System.nanoTime();
+                }
+                this.contention.increment();
+                spins = this.spinPolicy.pause(spins);
+            }
+            stat = this.list[ra].ufStatus();
+        }
+        this.spinPolicy.waited(spins, waitStart);
+        if (result) {
+            this.deaths.increment();
+            if (this.sizes != null && DEATH.isEnabled()) {
+                final SCCEvents.SCCDeath event = new SCCEvents.SCCDeath();
+                event.root = ra - 1;
+                event.size = this.sizes.get(ra);
+                event.age = (this.born.get(ra) == 0) ? 0 : System.nanoTime() - this.born.get(ra);
+                event.commit();
+            }
+            if (this.stream != null) {
+                this.stream.died(ra);
+            }
+            if (this.reclaimer != null) {
+                this.reclaimer.died(ra);
             }
-            stat = this.list.get(ra).ufStatus();
         }
         return result;
     }
 
+    // moveStatistics adds the size and first claim of "node q", which just became a child,
+    // to the root above it. Should that root get a parent meanwhile, its statistics move on
+    // to the next root. The statistics of a node are taken out atomically by whoever moves
+    // them, the adder or the worker which unites the node, so each size is moved once.
+    private void moveStatistics(int q, int r) {
+        int size = this.sizes.getAndSet(q, 0);
+        long born = this.born.get(q);
+        while (true) {
+            this.sizes.addAndGet(r, size);
+            if (born != 0) {
+                final long b = born;
+                this.born.accumulateAndGet(r, b, (x, y) -> (x == 0) ? y : Math.min(x, y));
+            }
+            if (this.list[r].parent() == 0) {
+                return;
+            }
+            size = this.sizes.getAndSet(r, 0);
+            born = this.born.get(r);
+            r = this.find(r);
+        }
+    }
+
+    // markTrivial makes "node a" a dead singleton SCC. It is only to be used before
+    // the search starts, e.g. by the trimming phase, as it bypasses the list and
+    // union find locking protocol.
+    public void markTrivial(int a) {
+        UFNode.listStatusUpdater.set(this.list[a], ListStatus.listTomb);
+        UFNode.ufStatusUpdater.set(this.list[a], UFStatus.UFdead);
+        this.visited.set(a - 1, true);
+        if (this.stream != null) {
+            this.stream.died(a);
+        }
+        if (this.reclaimer != null) {
+            this.reclaimer.died(a);
+        }
+    }
+
+    // assignSCC records that "node a" belongs to the SCC represented by "node root".
+    // It is meant for engines which find the SCCs without the locking protocol:
+    // "node root" becomes a dead root and "node a" its direct child. Any previous parent
+    // of "node a" is overwritten, so the SCCs of a finished search can be reassigned.
+    public void assignSCC(int a, int root) {
+        UFNode.parentUpdater.set(this.list[a], (a != root) ? root : 0);
+        UFNode.listStatusUpdater.set(this.list[a], ListStatus.listTomb);
+        UFNode.ufStatusUpdater.set(this.list[root], UFStatus.UFdead);
+        this.visited.set(a - 1, true);
+    }
+
     /************** Locking Operations ***************/
 
     // lockUF obtains a lock on the "node a" so that
     // no other worker modifies the node.
     public boolean lockUF(int a) {
-        if (this.list.get(a).ufStatus() == UFStatus.UFlive) {
-            if (UFNode.ufStatusUpdater.compareAndSet(this.list.get(a), UFStatus.UFlive, UFStatus.UFlock)) {
-                if (this.list.get(a).parent() == 0) {
+        if (this.list[a].ufStatus() == UFStatus.UFlive) {
+            if (UFNode.ufStatusUpdater.compareAndSet(this.list[a], UFStatus.UFlive, UFStatus.UFlock)) {
+                if (this.list[a].parent() == 0) {
                     return true;
                 }
 
                 // Undo compareAndSet
-                UFNode.ufStatusUpdater.set(this.list.get(a), UFStatus.UFlive);
+                UFNode.ufStatusUpdater.set(this.list[a], UFStatus.UFlive);
             }
         }
         return false;
@@ -377,7 +660,7 @@ public class UF {
 
     // unlockUF make the "node a" live again atomically.
     public void unlockUF(int a) {
-        UFNode.ufStatusUpdater.set(this.list.get(a), UFStatus.UFlive);
+        UFNode.ufStatusUpdater.set(this.list[a], UFStatus.UFlive);
     }
 
     // lockList obtains a lock on the list of "node a"
@@ -386,23 +669,45 @@ public class UF {
     public int lockList(int a) {
         PickStatus picked;
         int la;
+        int spins = 0;
+        long waitStart = 0;
+        // Created once the lock is not obtained at the first attempt, if the event is enabled.
+        SCCEvents.LockSpin spin = null;
 
         while (true) {
             Pair<PickStatus, Integer> p = pickFromList(a);
             picked = p.getKey();
             la = p.getValue();
             if (picked == PickStatus.pickDead) {
-                return -1;
+                la = -1;
+                break;
+            }
+            if (UFNode.listStatusUpdater.compareAndSet(this.list[la], ListStatus.listLive, ListStatus.listLock)) {
+                break;
             }
-            if (UFNode.listStatusUpdater.compareAndSet(this.list.get(la), ListStatus.listLive, ListStatus.listLock)) {
-                return la;
+            if (spins == 0) {
+                waitStart = System.nanoTime();
+                if (LOCK_SPIN.isEnabled()) {
+                    spin = new SCCEvents.LockSpin();
+                    spin.begin();
+                }
             }
+            this.contention.increment();
+            spins = this.spinPolicy.pause(spins);
+        }
+        this.spinPolicy.waited(spins, waitStart);
+        if (spin != null) {
+            spin.lock = "lockList";
+            spin.node = a - 1;
+            spin.spins = spins;
+            spin.commit();
         }
+        return la;
     }
 
     // unlockList make the "node a"'s list live again atomically.
     public void unlockList(int la) {
-        UFNode.listStatusUpdater.set(this.list.get(la), ListStatus.listLive);
+        UFNode.listStatusUpdater.set(this.list[la], ListStatus.listLive);
     }
 
 }
@@ -1,5 +1,7 @@
 package tarjanUF;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class UFNode {
@@ -7,10 +9,104 @@ public class UFNode {
     // workerCount is the number of workers that the algorithm is supposed to run on.
     public static int workerCount;
 
-    // workerSet is the bitmask of workers currently have this node on their tarjanStack.
-    // A concurrent bitset is required to counter the race conditions. If an non atomic
-    // operation is done two workers might read the same value and output will be undefined.
-    public ConcurrentBitSet workerSet;
+    // The worker set is the bitmask of workers currently have this node on their tarjanStack.
+    // Only the sets of roots are consulted. Atomic operations are required to counter the race
+    // conditions. If an non atomic operation is done two workers might read the same value
+    // and output will be undefined.
+    // The workers [1..64] are kept inline in `workers`, so no further memory is needed up to
+    // 64 workers. The workers above are kept in `moreWorkers`, which is only allocated once
+    // a worker above 64 is added. As the lowest free id is handed out, that only happens for
+    // the nodes claimed while more than 64 workers run. The sets are kept once a node is
+    // linked below another root, since a worker which found the node as its root just before
+    // may still test it in `UF.makeClaim`.
+    private volatile long workers;
+    private volatile AtomicLongArray moreWorkers;
+
+    private static final AtomicLongFieldUpdater<UFNode> workersUpdater =
+        AtomicLongFieldUpdater.newUpdater(UFNode.class, "workers");
+    private static final AtomicReferenceFieldUpdater<UFNode, AtomicLongArray> moreWorkersUpdater =
+        AtomicReferenceFieldUpdater.newUpdater(UFNode.class, AtomicLongArray.class, "moreWorkers");
+
+    // workerUnits returns the number of longs a worker set of `workerCount` workers takes.
+    public static int workerUnits() {
+        return 1 + (workerCount - 1) / 64;
+    }
+
+    // workerUnit returns the workers [64 * u + 1..64 * u + 64] of the worker set as a long.
+    public long workerUnit(int u) {
+        if (u == 0) {
+            return this.workers;
+        }
+        final AtomicLongArray more = this.moreWorkers;
+        return (more == null) ? 0 : more.get(u - 1);
+    }
+
+    // addWorkerUnit adds the workers in `bits` to the workers [64 * u + 1..64 * u + 64].
+    private void addWorkerUnit(int u, long bits) {
+        if (bits == 0) {
+            return;
+        }
+        if (u == 0) {
+            workersUpdater.accumulateAndGet(this, bits, (a, b) -> a | b);
+            return;
+        }
+        this.moreWorkers().accumulateAndGet(u - 1, bits, (a, b) -> a | b);
+    }
+
+    // moreWorkers returns `moreWorkers`, allocating it if needed.
+    private AtomicLongArray moreWorkers() {
+        if (this.moreWorkers == null) {
+            // Only one of the racing workers installs its array.
+            moreWorkersUpdater.compareAndSet(this, null, new AtomicLongArray(workerUnits() - 1));
+        }
+        return this.moreWorkers;
+    }
+
+    // setWorkerUnit sets the workers [64 * u + 1..64 * u + 64] to those in `bits`.
+    // Not atomic with respect to other updates, it is meant for restoring a worker set.
+    public void setWorkerUnit(int u, long bits) {
+        if (u == 0) {
+            this.workers = bits;
+        } else if (bits != 0 || this.moreWorkers != null) {
+            this.moreWorkers().set(u - 1, bits);
+        }
+    }
+
+    // hasWorker checks if `worker` is in the worker set.
+    public boolean hasWorker(int worker) {
+        return (this.workerUnit((worker - 1) / 64) & (1L << ((worker - 1) % 64))) != 0;
+    }
+
+    // addWorker adds `worker` to the worker set.
+    public void addWorker(int worker) {
+        this.addWorkerUnit((worker - 1) / 64, 1L << ((worker - 1) % 64));
+    }
+
+    // hasWorkers checks if all workers in the worker set of `other` are in this worker set.
+    public boolean hasWorkers(UFNode other) {
+        final int units = workerUnits();
+        for (int u = 0; u < units; u++) {
+            if ((other.workerUnit(u) & ~this.workerUnit(u)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // addWorkers adds the workers in the worker set of `other` to this worker set,
+    // atomically per long.
+    public void addWorkers(UFNode other) {
+        final int units = workerUnits();
+        for (int u = 0; u < units; u++) {
+            this.addWorkerUnit(u, other.workerUnit(u));
+        }
+    }
+
+    // releaseWorkers empties the worker set and frees its memory. Only for dead nodes.
+    public void releaseWorkers() {
+        this.workers = 0;
+        this.moreWorkers = null;
+    }
 
     // parent denotes the parent of a node in the union find tree.
     private volatile Integer parent;
@@ -95,7 +191,6 @@ public class UFNode {
 
     // Constructor.
     public UFNode() {
-        this.workerSet = new ConcurrentBitSet(UFNode.workerCount);
         UFNode.parentUpdater.set(this, 0);
         UFNode.listNextUpdater.set(this, 0);
         // Initially every node is live.